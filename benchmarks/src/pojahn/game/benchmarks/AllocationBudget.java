@@ -0,0 +1,186 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import pojahn.game.core.HeadlessEngineRunner;
+import pojahn.game.core.Level;
+import pojahn.game.entities.main.GravityMan;
+import pojahn.game.entities.movement.LineMovement;
+import pojahn.game.entities.movement.LineMovement.Movement;
+import pojahn.game.entities.movement.PathDrone;
+import pojahn.game.essentials.FrameProfiler;
+import pojahn.game.essentials.FrameProfiler.Counter;
+import pojahn.game.essentials.Keystrokes;
+import pojahn.game.essentials.recording.PlaybackRecord;
+import pojahn.game.essentials.recording.RecordingDevice;
+import pojahn.game.essentials.recording.Replay;
+import pojahn.lang.IO;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Plays back a run of each level headlessly and checks that the bytes allocated per frame by the game loop stay within
+ * the budget of the level. Only the frames kept by the {@link FrameProfiler} are averaged, so the frames before them
+ * warm up the JIT. Exits with status 1 if any level is over its budget, so the {@code allocationBudget} task fails the
+ * build.
+ * <p>
+ * Without arguments, two synthetic scenario levels are played with a scripted run. The shipped levels can't be the
+ * default: they load their art from {@code desktop/res} and their replays are recorded by players, and neither is part
+ * of the repository. Where they are available, pass one argument per level on the form
+ * {@code <level class>,<replay file>,<budget in bytes>} and run it from the {@code desktop} directory, where the levels
+ * find {@code res/}. The replay file is a {@link Replay} as exported by the game.
+ * <p>
+ * Run it with {@code gradlew benchmarks:allocationBudget}, optionally with {@code -Plevels=<level>;<level>}, or with
+ * {@code java} and the benchmarks, core and libGDX jars on the class path.
+ */
+public class AllocationBudget {
+
+    private static final String RUNNER = "runner";
+    private static final int FRAMES = 3000;
+
+    private static class Scenario {
+
+        final String name;
+        final Callable<Level> level;
+        final Callable<PlaybackRecord> record;
+        final long budget, maxFrames;
+
+        Scenario(final String name, final Callable<Level> level, final Callable<PlaybackRecord> record, final long budget,
+                 final long maxFrames) {
+            this.name = name;
+            this.level = level;
+            this.record = record;
+            this.budget = budget;
+            this.maxFrames = maxFrames;
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final List<Scenario> scenarios;
+        if (args.length == 0) {
+            Benchmarks.initGdx();
+            scenarios = scenarioLevels();
+        } else {
+            Benchmarks.initBackend();
+            scenarios = shippedLevels(args);
+        }
+
+        int failures = 0;
+        for (final Scenario scenario : scenarios) {
+            final FrameProfiler profiler = run(scenario);
+            final long perFrame = profiler.averagePerTick(Counter.LOOP_BYTES);
+            final boolean passed = perFrame <= scenario.budget;
+
+            System.out.println(scenario.name + ": " + perFrame + " B/frame (budget " + scenario.budget + "), worst frame " +
+                profiler.max(Counter.LOOP_BYTES) + " B, " + sum(profiler, Counter.GC_PAUSES) + " GC pauses " +
+                sum(profiler, Counter.GC_MILLIS) + " ms" + (passed ? "" : " - OVER BUDGET"));
+
+            if (!passed)
+                failures++;
+        }
+
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static List<Scenario> scenarioLevels() {
+        return List.of(
+            new Scenario("Runner", () -> new ScenarioLevel(0), AllocationBudget::record, 512, FRAMES),
+            new Scenario("Drones", () -> new ScenarioLevel(40), AllocationBudget::record, 512, FRAMES));
+    }
+
+    private static List<Scenario> shippedLevels(final String[] args) {
+        final List<Scenario> scenarios = new ArrayList<>();
+        for (final String arg : args) {
+            final String[] parts = arg.split(",");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Expected <level class>,<replay file>,<budget>: " + arg);
+
+            final String levelClass = parts[0].trim(), replayFile = parts[1].trim();
+            scenarios.add(new Scenario(
+                levelClass.substring(levelClass.lastIndexOf('.') + 1),
+                () -> Class.forName(levelClass).asSubclass(Level.class).getDeclaredConstructor().newInstance(),
+                () -> {
+                    final File file = new File(replayFile).getAbsoluteFile();
+                    final Replay replay = (Replay) IO.importObject(Gdx.files.absolute(file.getPath()));
+                    return new PlaybackRecord(replay.keystrokes, replay.meta);
+                },
+                Long.parseLong(parts[2].trim()),
+                Long.MAX_VALUE));
+        }
+        return scenarios;
+    }
+
+    private static FrameProfiler run(final Scenario scenario) throws Exception {
+        final HeadlessEngineRunner runner = new HeadlessEngineRunner(scenario.level.call(), scenario.record.call());
+        final FrameProfiler profiler = runner.getEngine().getProfiler();
+        profiler.enabled = true;
+        runner.getEngine().profilerExportDir = new File(System.getProperty("java.io.tmpdir"), "allocation-budget");
+        runner.setMaxFrames(scenario.maxFrames);
+        runner.run();
+        runner.dispose();
+
+        return profiler;
+    }
+
+    /**
+     * Runs right and jumps every second.
+     */
+    private static PlaybackRecord record() {
+        final RecordingDevice device = new RecordingDevice();
+        device.addEntry(RUNNER);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            final Keystrokes keys = new Keystrokes();
+            keys.right = true;
+            keys.jump = frame % 60 < 10;
+            device.addFrame(RUNNER, keys);
+        }
+
+        return new PlaybackRecord(device.export(), null);
+    }
+
+    private static long sum(final FrameProfiler profiler, final Counter counter) {
+        long sum = 0;
+        for (int i = 0; i < profiler.size(); i++)
+            sum += profiler.get(i, counter);
+
+        return sum;
+    }
+
+    private static class ScenarioLevel extends BenchmarkLevel {
+
+        private final int drones;
+
+        ScenarioLevel(final int drones) {
+            super(4000, 2000);
+            this.drones = drones;
+        }
+
+        @Override
+        public void build() {
+            final GravityMan runner = new GravityMan();
+            runner.setIdentifier(RUNNER);
+            runner.bounds.size.set(32, 48);
+            runner.move(60, getHeight() - 40 - 48);
+            add(runner);
+
+            for (int i = 0; i < drones; i++) {
+                final float x = 150 + i * 90;
+                final PathDrone drone = new PathDrone(x, 60);
+                drone.bounds.size.set(24, 24);
+                drone.appendPath(x, 60);
+                drone.appendPath(x + 60, 400);
+                add(drone);
+
+                if (i % 4 == 0) {
+                    final LineMovement line = new LineMovement(i % 8 == 0 ? Movement.HORIZONTAL : Movement.VERTICAL);
+                    line.bounds.size.set(16, 16);
+                    line.move(x, 30);
+                    add(line);
+                }
+            }
+        }
+    }
+}
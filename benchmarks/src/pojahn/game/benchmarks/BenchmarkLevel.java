@@ -0,0 +1,62 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import pojahn.game.essentials.stages.PixelBasedLevel;
+
+import java.io.Serializable;
+
+/**
+ * A pixel based level with a solid frame, a solid floor and evenly spread solid blocks in between.
+ */
+public class BenchmarkLevel extends PixelBasedLevel {
+
+    public static final int HOLLOW = 0x7d7d7dff;
+    public static final int SOLID = 0x5a5a5aff;
+    public static final int LETHAL = 0xffff00ff;
+
+    public BenchmarkLevel(final int width, final int height) {
+        createMap(draw(width, height));
+    }
+
+    /**
+     * Draws the terrain of a benchmark level of the given size.
+     */
+    public static Pixmap draw(final int width, final int height) {
+        final Pixmap map = new Pixmap(width, height, Format.RGBA8888);
+        map.setColor(HOLLOW);
+        map.fill();
+
+        map.setColor(SOLID);
+        map.drawRectangle(0, 0, width, height);
+        map.fillRectangle(0, height - 40, width, 40);
+
+        for (int x = 100; x < width - 100; x += 200) {
+            for (int y = 100; y < height - 100; y += 150) {
+                map.setColor(((x + y) / 50) % 5 == 0 ? LETHAL : SOLID);
+                map.fillRectangle(x, y, 40, 16);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Drops what the level remembers about the terrain, like it does at the start of every frame.
+     */
+    public void nextFrame() {
+        terrainChanged();
+    }
+
+    @Override
+    public void init(final Serializable meta) {
+    }
+
+    @Override
+    public void build() {
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
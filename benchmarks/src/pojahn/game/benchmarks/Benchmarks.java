@@ -0,0 +1,69 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import pojahn.game.essentials.Image2D;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Sets up just enough of libGDX to create images and levels outside of an OpenGL context.
+ */
+public class Benchmarks {
+
+    public static void initGdx() {
+        GdxNativesLoader.load();
+
+        if (Gdx.gl == null) {
+            final GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, (proxy, method, args) -> {
+                final Class<?> type = method.getReturnType();
+                if (type == boolean.class)
+                    return false;
+                if (type == int.class)
+                    return 0;
+                if (type == float.class)
+                    return 0.0f;
+
+                return null;
+            });
+            Gdx.gl = Gdx.gl20 = gl;
+        }
+    }
+
+    /**
+     * Also starts a headless libGDX backend, for levels that load their resources through {@code Gdx.files}.
+     */
+    public static void initBackend() {
+        if (Gdx.app == null)
+            new HeadlessApplication(new ApplicationAdapter() {
+            });
+
+        initGdx();
+    }
+
+    /**
+     * Creates an image with pixel data, where the pixels outside of the inscribed ellipse are transparent.
+     */
+    public static Image2D blob(final int width, final int height) {
+        final Pixmap pixmap = new Pixmap(width, height, Format.RGBA8888);
+        final float rx = width / 2.0f;
+        final float ry = height / 2.0f;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                final float dx = (x + .5f - rx) / rx;
+                final float dy = (y + .5f - ry) / ry;
+                pixmap.drawPixel(x, y, dx * dx + dy * dy <= 1.0f ? 0xff0000ff : 0);
+            }
+        }
+
+        final Image2D image = new Image2D(pixmap, true);
+        pixmap.dispose();
+        return image;
+    }
+}
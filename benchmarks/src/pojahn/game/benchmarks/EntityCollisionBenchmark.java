@@ -0,0 +1,76 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Entity;
+import pojahn.game.essentials.Hitbox;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers every branch of {@link Entity#collidesWith(Entity)} with two overlapping entities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCollisionBenchmark {
+
+    @Param({"NONE", "RECTANGLE", "ROTATED_RECTANGLE", "RECTANGLE_CIRCLE", "CIRCLE", "PIXEL"})
+    public String branch;
+
+    private Entity entity1, entity2;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+
+        entity1 = new Entity();
+        entity2 = new Entity();
+        entity1.setImage(Benchmarks.blob(48, 48));
+        entity2.setImage(Benchmarks.blob(48, 48));
+        entity1.move(100, 100);
+        entity2.move(138, 138);
+
+        switch (branch) {
+            case "NONE":
+                entity1.setHitbox(Hitbox.NONE);
+                break;
+            case "RECTANGLE":
+                break;
+            case "ROTATED_RECTANGLE":
+                entity1.setRotation(30);
+                entity2.setRotation(-15);
+                break;
+            case "RECTANGLE_CIRCLE":
+                entity2.setHitbox(Hitbox.CIRCLE);
+                break;
+            case "CIRCLE":
+                entity1.setHitbox(Hitbox.CIRCLE);
+                entity2.setHitbox(Hitbox.CIRCLE);
+                break;
+            case "PIXEL":
+                entity1.setHitbox(Hitbox.PIXEL);
+                entity2.setHitbox(Hitbox.PIXEL);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown branch: " + branch);
+        }
+    }
+
+    @Benchmark
+    public boolean collidesWith() {
+        return entity1.collidesWith(entity2);
+    }
+}
@@ -0,0 +1,107 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Entity;
+import pojahn.game.core.EntityStore;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of particle churn: {@code churn} random entities are discarded, as many are added and the whole
+ * collection is iterated, like {@code Level.place()} followed by {@code Level.updateEntities()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityStoreBenchmark {
+
+    @Param({"1000", "5000"})
+    public int population;
+
+    @Param({"50"})
+    public int churn;
+
+    private List<Entity> list;
+    private EntityStore store;
+    private Entity[] listLive, storeLive, spares;
+    private Random listRandom, storeRandom;
+
+    @Setup
+    public void setup() {
+        list = new LinkedList<>();
+        store = new EntityStore();
+        listLive = new Entity[population];
+        storeLive = new Entity[population];
+        spares = new Entity[population * 2];
+
+        for (int i = 0; i < spares.length; i++)
+            spares[i] = new Entity();
+
+        for (int i = 0; i < population; i++) {
+            listLive[i] = new Entity();
+            storeLive[i] = new Entity();
+            list.add(listLive[i]);
+            store.add(storeLive[i]);
+        }
+
+        listRandom = new Random(1);
+        storeRandom = new Random(1);
+    }
+
+    @Benchmark
+    public float linkedList() {
+        for (int i = 0; i < churn; i++) {
+            final int index = listRandom.nextInt(population);
+            list.remove(listLive[index]);
+
+            final int spareIndex = listRandom.nextInt(spares.length);
+            final Entity spare = spares[spareIndex];
+            spares[spareIndex] = listLive[index];
+            listLive[index] = spare;
+            list.add(spare);
+        }
+
+        float sum = 0;
+        for (final Entity entity : list)
+            sum += entity.x();
+
+        return sum;
+    }
+
+    @Benchmark
+    public float entityStore() {
+        for (int i = 0; i < churn; i++) {
+            final int index = storeRandom.nextInt(population);
+            store.remove(storeLive[index]);
+
+            final int spareIndex = storeRandom.nextInt(spares.length);
+            final Entity spare = spares[spareIndex];
+            spares[spareIndex] = storeLive[index];
+            storeLive[index] = spare;
+            store.add(spare);
+        }
+        store.compact();
+
+        float sum = 0;
+        for (int i = 0; i < store.size(); i++)
+            sum += store.get(i).x();
+
+        return sum;
+    }
+}
@@ -0,0 +1,151 @@
+package pojahn.game.benchmarks;
+
+import pojahn.game.core.Entity;
+import pojahn.game.core.HeadlessEngineRunner;
+import pojahn.game.core.Level.Tile;
+import pojahn.game.entities.enemy.weapon.Bullet;
+import pojahn.game.entities.enemy.weapon.Weapon;
+import pojahn.game.entities.main.GravityMan;
+import pojahn.game.entities.movement.PathDrone;
+import pojahn.game.entities.platform.SolidPlatform;
+import pojahn.game.essentials.Hitbox;
+import pojahn.game.essentials.Keystrokes;
+import pojahn.game.essentials.recording.PlaybackRecord;
+import pojahn.game.essentials.recording.RecordingDevice;
+
+import java.util.List;
+
+/**
+ * Plays headless stand-ins for GreenHill and SteelFactory and prints the time per simulated frame, without rendering.
+ * <p>
+ * The shipped levels load their terrain and art from {@code desktop/res}, which is not part of the repository, so each
+ * stand-in puts the entities of the level that query the terrain or each other on a {@link BenchmarkLevel} of about
+ * the same size: the main character with a tile event, solid platforms, pixel perfect drones, a gun firing at the main
+ * character and the pickups. The main character runs back and forth and jumps. The first round warms up the JIT.
+ * <p>
+ * Only uses API that predates the terrain masks, so it can be run against older trees to compare. Run it with
+ * {@code gradlew benchmarks:frameTimes}.
+ */
+public class FrameTimes {
+
+    private static final String RUNNER = "runner";
+    private static final int FRAMES = 3000;
+    private static final int ROUNDS = 6;
+
+    private static class StandIn extends BenchmarkLevel {
+
+        final int platforms, drones, guns, pickups;
+
+        StandIn(final int width, final int height, final int platforms, final int drones, final int guns, final int pickups) {
+            super(width, height);
+            this.platforms = platforms;
+            this.drones = drones;
+            this.guns = guns;
+            this.pickups = pickups;
+        }
+
+        @Override
+        public void build() {
+            final GravityMan runner = new GravityMan();
+            runner.setIdentifier(RUNNER);
+            runner.bounds.size.set(32, 48);
+            runner.setImage(Benchmarks.blob(32, 48));
+            runner.move(60, getHeight() - 40 - 48);
+            runner.addTileEvent(tile -> {
+                if (tile == Tile.LETHAL)
+                    runner.bounds.rotation = 0;
+            });
+            add(runner);
+
+            for (int i = 0; i < platforms; i++) {
+                final float x = 300 + i * 500, y = getHeight() - 160;
+                final SolidPlatform platform = new SolidPlatform(x, y, runner);
+                platform.setImage(Benchmarks.blob(96, 16));
+                platform.bounds.size.set(96, 16);
+                platform.setMoveSpeed(1 + i % 2);
+                platform.appendPath(x, y, 20, false, null);
+                platform.appendPath(x + 300, y, 20, false, null);
+                add(platform);
+            }
+
+            for (int i = 0; i < drones; i++) {
+                final float x = 500 + i * 600, y = getHeight() - 40 - 24;
+                final PathDrone drone = new PathDrone(x, y);
+                drone.setImage(Benchmarks.blob(24, 24));
+                drone.bounds.size.set(24, 24);
+                drone.setHitbox(Hitbox.PIXEL);
+                drone.setMoveSpeed(0.8f);
+                drone.appendPath(x, y, 0, false, null);
+                drone.appendPath(x - 350, y, 0, false, null);
+                drone.ifCollides(runner).then(() -> drone.bounds.rotation = 0);
+                add(drone);
+            }
+
+            for (int i = 0; i < guns; i++) {
+                final Bullet bullet = new Bullet(runner);
+                bullet.setImage(Benchmarks.blob(8, 8));
+                bullet.bounds.size.set(8, 8);
+                bullet.setMoveSpeed(4);
+
+                final Weapon gun = new Weapon(800 + i * 1500, 60, 1, 1, 60, runner);
+                gun.setImage(Benchmarks.blob(24, 24));
+                gun.bounds.size.set(24, 24);
+                gun.setProjectile(bullet);
+                add(gun);
+            }
+
+            for (int i = 0; i < pickups; i++) {
+                final Entity pickup = new Entity();
+                pickup.setImage(Benchmarks.blob(16, 16));
+                pickup.bounds.size.set(16, 16);
+                pickup.move(100 + (i * 137) % (getWidth() - 200), getHeight() - 70 - (i % 3) * 30);
+                pickup.ifCollides(runner).then(pickup::die);
+                add(pickup);
+            }
+        }
+    }
+
+    public static void main(final String[] args) {
+        Benchmarks.initGdx();
+
+        final List<String> names = List.of("GreenHill", "SteelFactory");
+        for (final String name : names) {
+            double best = Double.MAX_VALUE, sum = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                final StandIn level = name.equals("GreenHill") ?
+                    new StandIn(3000, 800, 4, 2, 1, 46) :
+                    new StandIn(8200, 3700, 5, 4, 2, 20);
+
+                final HeadlessEngineRunner runner = new HeadlessEngineRunner(level, record());
+                runner.setMaxFrames(FRAMES);
+                final HeadlessEngineRunner.Result result = runner.run();
+                runner.dispose();
+
+                if (round > 0) {
+                    final double micros = 1_000_000.0 / result.framesPerSecond;
+                    best = Math.min(best, micros);
+                    sum += micros;
+                }
+            }
+            System.out.printf("%s: %.1f us/frame best, %.1f us/frame mean%n", name, best, sum / (ROUNDS - 1));
+        }
+    }
+
+    /**
+     * Runs right for ten seconds, then left, jumping every second.
+     */
+    private static PlaybackRecord record() {
+        final RecordingDevice device = new RecordingDevice();
+        device.addEntry(RUNNER);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            final Keystrokes keys = new Keystrokes();
+            keys.right = frame % 1200 < 600;
+            keys.left = !keys.right;
+            keys.jump = frame % 60 < 10;
+            device.addFrame(RUNNER, keys);
+        }
+
+        return new PlaybackRecord(device.export(), null);
+    }
+}
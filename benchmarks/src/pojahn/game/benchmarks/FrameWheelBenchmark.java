@@ -0,0 +1,102 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.essentials.FrameWheel;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.partitioningBy;
+
+/**
+ * One frame of {@code Level.place()} with {@code pending} delayed objects waiting, of which about one becomes due and
+ * is replaced per frame. The queue is either streamed through {@code partitioningBy} like the level used to do, or
+ * kept in a {@link FrameWheel}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameWheelBenchmark {
+
+    private static class Countdown {
+
+        int counter;
+        final Object object;
+
+        Countdown(final int counter, final Object object) {
+            this.counter = counter;
+            this.object = object;
+        }
+
+        boolean tick() {
+            return --counter <= 0;
+        }
+    }
+
+    @Param({"0", "100", "1000"})
+    public int pending;
+
+    private List<Countdown> queue;
+    private FrameWheel<Object> wheel;
+    private Consumer<Object> sink;
+    private Random queueRandom, wheelRandom;
+    private Object payload;
+    private int handled;
+
+    @Setup
+    public void setup() {
+        queue = new LinkedList<>();
+        wheel = new FrameWheel<>();
+        sink = obj -> handled++;
+        payload = new Object();
+        queueRandom = new Random(1);
+        wheelRandom = new Random(1);
+
+        for (int i = 0; i < pending; i++) {
+            final int delay = 1 + i % (2 * pending);
+            queue.add(new Countdown(delay, payload));
+            wheel.schedule(payload, delay);
+        }
+    }
+
+    @Benchmark
+    public int partitioning() {
+        final Map<Boolean, List<Countdown>> map = queue.stream().collect(partitioningBy(Countdown::tick));
+
+        queue = map.get(Boolean.FALSE);
+        for (final Countdown due : map.get(Boolean.TRUE)) {
+            sink.accept(due.object);
+            queue.add(new Countdown(1 + queueRandom.nextInt(2 * pending), payload));
+        }
+
+        return handled;
+    }
+
+    @Benchmark
+    public int frameWheel() {
+        final int before = wheel.size();
+        wheel.advance(sink);
+
+        for (int i = wheel.size(); i < before; i++)
+            wheel.schedule(payload, 1 + wheelRandom.nextInt(2 * pending));
+
+        return handled;
+    }
+}
@@ -0,0 +1,98 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.BaseLogic;
+import pojahn.game.essentials.geom.Bounds;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    private Rectangle rec1, rec2;
+    private Circle circle;
+    private Bounds bounds1, bounds2;
+    private Rectangle box;
+    private Vector2 point;
+
+    @Setup
+    public void setup() {
+        rec1 = new Rectangle(100, 100, 40, 30);
+        rec2 = new Rectangle(120, 110, 40, 30);
+        circle = new Circle(150, 140, 15);
+        box = new Rectangle();
+        point = new Vector2();
+
+        bounds1 = new Bounds();
+        bounds1.pos.set(100, 100);
+        bounds1.size.set(40, 30);
+        bounds1.rotation = 30;
+
+        bounds2 = new Bounds();
+        bounds2.pos.set(125, 110);
+        bounds2.size.set(40, 30);
+        bounds2.rotation = -15;
+    }
+
+    @Benchmark
+    public boolean rectanglesCollide() {
+        return BaseLogic.rectanglesCollide(rec1, rec2);
+    }
+
+    @Benchmark
+    public boolean rectanglesCollideFloats() {
+        return BaseLogic.rectanglesCollide(rec1.x, rec1.y, rec1.width, rec1.height, rec2.x, rec2.y, rec2.width, rec2.height);
+    }
+
+    @Benchmark
+    public boolean rotatedRectanglesCollide() {
+        return BaseLogic.rotatedRectanglesCollide(bounds1, bounds2);
+    }
+
+    @Benchmark
+    public boolean rotatedRectangleCircleCollide() {
+        return BaseLogic.rotatedRectangleCircleCollide(bounds1, circle);
+    }
+
+    @Benchmark
+    public boolean circleRectangleCollide() {
+        return BaseLogic.circleRectangleCollide(circle, rec1);
+    }
+
+    @Benchmark
+    public boolean lineRectangle() {
+        return BaseLogic.lineRectangle(50, 50, 300, 200, rec2);
+    }
+
+    @Benchmark
+    public Rectangle getBoundingBox() {
+        return BaseLogic.getBoundingBox(bounds1);
+    }
+
+    @Benchmark
+    public Rectangle getBoundingBoxInto() {
+        return BaseLogic.getBoundingBox(bounds1, box);
+    }
+
+    @Benchmark
+    public Vector2 rotatePointInto() {
+        return BaseLogic.rotatePoint(bounds2.pos.x, bounds2.pos.y, bounds1.pos.x, bounds1.pos.y, bounds1.rotation, point);
+    }
+}
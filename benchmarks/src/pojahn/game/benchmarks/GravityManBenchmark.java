@@ -0,0 +1,87 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Level;
+import pojahn.game.entities.main.GravityMan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of running at top speed along the floor, walking the terrain with {@link Level#walkX} against the sub-pixel
+ * stepping that probed the outline at every step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GravityManBenchmark {
+
+    private static final float START_X = 500, FLOOR_Y = 2000 - 40 - 49, DISTANCE = 260 / 60f;
+
+    private BenchmarkLevel level;
+    private Runner runner;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        level = new BenchmarkLevel(4000, 2000);
+        runner = new Runner();
+        runner.bounds.size.set(32, 48);
+    }
+
+    @Benchmark
+    public float runRight() {
+        runner.move(START_X, FLOOR_Y);
+        runner.vel.x = -1;
+        runner.runRight(START_X + DISTANCE);
+        return runner.x();
+    }
+
+    @Benchmark
+    public float runRightLegacy() {
+        runner.move(START_X, FLOOR_Y);
+        runner.vel.x = -1;
+        runner.legacyRunRight(START_X + DISTANCE);
+        return runner.x();
+    }
+
+    private class Runner extends GravityMan {
+
+        @Override
+        public Level getLevel() {
+            return level;
+        }
+
+        @Override
+        public void runRight(final float targetX) {
+            super.runRight(targetX);
+        }
+
+        void legacyRunRight(final float targetX) {
+            for (float next = x(); next <= targetX; next += 0.2f) {
+                if (!occupiedAt(next, y())) {
+                    bounds.pos.x = next;
+                    if (!occupiedAt(x(), y() + 1) && occupiedAt(x(), y() + 2))
+                        bounds.pos.y++;
+                } else if (canSlopeRight(next)) {
+                    move(next, y() - 1);
+                    tryDown(1);
+                } else {
+                    vel.x = 0;
+                    break;
+                }
+            }
+        }
+    }
+}
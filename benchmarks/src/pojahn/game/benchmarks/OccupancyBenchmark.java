@@ -0,0 +1,98 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Entity;
+import pojahn.game.core.Level;
+import pojahn.game.core.MobileEntity;
+import pojahn.game.core.Level.Tile;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outline query behind {@link MobileEntity#occupiedAt(float, float)} for a 32x48 entity standing on a block,
+ * compared with the pixel walk into a hash set that it replaced, and the full query with a few obstacles in the way.
+ * Run with {@code -prof gc} to see that neither {@code outline} nor {@code occupiedAt} allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OccupancyBenchmark {
+
+    private BenchmarkLevel level;
+    private MobileEntity mobile;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        level = new BenchmarkLevel(4000, 2000);
+
+        mobile = new MobileEntity() {
+            @Override
+            public Level getLevel() {
+                return level;
+            }
+        };
+        mobile.move(300, 52);
+        mobile.bounds.size.set(32, 48);
+
+        for (int i = 0; i < 4; i++) {
+            final Entity obstacle = new Entity() {
+                @Override
+                public boolean available() {
+                    return true;
+                }
+            };
+            obstacle.move(334 + i * 40, 60);
+            obstacle.bounds.size.set(32, 32);
+            obstacle.activate(true);
+            mobile.addObstacle(obstacle);
+        }
+    }
+
+    @Benchmark
+    public boolean outline() {
+        return Tile.SOLID.in(level.tilesOnOutline(104, 52, 32, 48));
+    }
+
+    @Benchmark
+    public boolean outlineLegacy() {
+        return legacyOutline(level, 104, 52, 32, 48).contains(Tile.SOLID);
+    }
+
+    /**
+     * A probe in open space that has to go through every obstacle, with one of them right next to the entity.
+     */
+    @Benchmark
+    public boolean occupiedAt() {
+        return mobile.occupiedAt(301.5f, 52);
+    }
+
+    private static Set<Tile> legacyOutline(final Level l, final int x, final int y, final int w, final int h) {
+        final Set<Tile> cells = new HashSet<>();
+
+        for (int xcord = x; xcord < x + w; xcord++) {
+            cells.add(l.tileAt(xcord, y));
+            cells.add(l.tileAt(xcord, y + h));
+        }
+        for (int ycord = y; ycord < y + h; ycord++) {
+            cells.add(l.tileAt(x, ycord));
+            cells.add(l.tileAt(x + w, ycord));
+        }
+
+        return cells;
+    }
+}
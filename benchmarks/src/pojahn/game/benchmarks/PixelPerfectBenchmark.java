@@ -0,0 +1,126 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.BaseLogic;
+import pojahn.game.essentials.Image2D;
+import pojahn.game.essentials.geom.Bounds;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two ellipses whose bounding boxes overlap by a quarter but whose opaque pixels don't touch, which is the worst case
+ * for a pixel perfect test since every pixel of the intersection is visited. The {@code Legacy} variants test one
+ * pixel at a time in the {@code int[][]} pixel data that the alpha masks replaced. The {@code rotated} variant turns
+ * the two ellipses 30 and 75 degrees around their centers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelPerfectBenchmark {
+
+    @Param({"16", "64", "128"})
+    public int size;
+
+    private Image2D image1, image2;
+    private int[][] pixels1, pixels2;
+    private Rectangle rec1, rec2;
+    private Bounds bounds1, bounds2;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        image1 = Benchmarks.blob(size, size);
+        image2 = Benchmarks.blob(size, size);
+        pixels1 = pixels(image1);
+        pixels2 = pixels(image2);
+
+        rec1 = new Rectangle(0, 0, size, size);
+        rec2 = new Rectangle(size * .8f, size * .8f, size, size);
+        bounds1 = bounds(rec1, 30);
+        bounds2 = bounds(rec2, 75);
+    }
+
+    @Benchmark
+    public boolean pixelPerfect() {
+        return BaseLogic.pixelPerfect(rec1, image1, false, false, rec2, image2, false, false);
+    }
+
+    @Benchmark
+    public boolean pixelPerfectFlipped() {
+        return BaseLogic.pixelPerfect(rec1, image1, true, false, rec2, image2, false, true);
+    }
+
+    @Benchmark
+    public boolean pixelPerfectRotated() {
+        return BaseLogic.pixelPerfectRotation(bounds1, image1, false, false, bounds2, image2, true, false);
+    }
+
+    @Benchmark
+    public boolean pixelPerfectLegacy() {
+        return legacyPixelPerfect(rec1, pixels1, false, false, rec2, pixels2, false, false);
+    }
+
+    @Benchmark
+    public boolean pixelPerfectFlippedLegacy() {
+        return legacyPixelPerfect(rec1, pixels1, true, false, rec2, pixels2, false, true);
+    }
+
+    private static Bounds bounds(final Rectangle rec, final float rotation) {
+        final Bounds bounds = new Bounds();
+        bounds.pos.set(rec.x, rec.y);
+        bounds.size.width = rec.width;
+        bounds.size.height = rec.height;
+        bounds.rotation = rotation;
+        return bounds;
+    }
+
+    private static int[][] pixels(final Image2D image) {
+        final int[][] pixels = new int[image.getWidth()][image.getHeight()];
+        for (int x = 0; x < pixels.length; x++) {
+            for (int y = 0; y < pixels[x].length; y++)
+                pixels[x][y] = image.isInvisible(x, y) ? 0 : 0xff0000ff;
+        }
+        return pixels;
+    }
+
+    private static boolean legacyPixelPerfect(
+        final Rectangle rec1, final int[][] image1, final boolean flipX1, final boolean flipY1,
+        final Rectangle rec2, final int[][] image2, final boolean flipX2, final boolean flipY2) {
+
+        final int width1 = image1.length;
+        final int width2 = image2.length;
+        final int height1 = image1[0].length;
+        final int height2 = image2[0].length;
+        final int top = (int) Math.max(rec1.y, rec2.y);
+        final int bottom = (int) Math.min(rec1.y + height1, rec2.y + height2);
+        final int left = (int) Math.max(rec1.x, rec2.x);
+        final int right = (int) Math.min(rec1.x + width1, rec2.x + width2);
+
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                final int x1 = (int) (flipX1 ? width1 - (x - rec1.x) - 1 : x - rec1.x);
+                final int y1 = (int) (flipY1 ? height1 - (y - rec1.y) - 1 : y - rec1.y);
+                final int x2 = (int) (flipX2 ? width2 - (x - rec2.x) - 1 : x - rec2.x);
+                final int y2 = (int) (flipY2 ? height2 - (y - rec2.y) - 1 : y - rec2.y);
+
+                if ((image1[x1][y1] & 0x000000FF) != 0 && (image2[x2][y2] & 0x000000FF) != 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.BaseLogic;
+import pojahn.game.core.Level;
+import pojahn.game.core.Level.Tile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ray casts through {@link BaseLogic#searchTile}, each next to the pixel by pixel walk it had before it could skip
+ * empty cells.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchTileBenchmark {
+
+    private BenchmarkLevel level;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        level = new BenchmarkLevel(4000, 2000);
+    }
+
+    /**
+     * A short line of sight between two points in open space.
+     */
+    @Benchmark
+    public boolean shortClearLine() {
+        return BaseLogic.solidSpace(150, 130, 280, 240, level);
+    }
+
+    /**
+     * A long ray that ends on the solid floor.
+     */
+    @Benchmark
+    public Vector2 longRayToFloor() {
+        return BaseLogic.searchTile(160, 130, 3900, 1965, true, Tile.SOLID, level);
+    }
+
+    /**
+     * A long ray through open space until the edge of the stage, like a laser beam.
+     */
+    @Benchmark
+    public Vector2 longRayToEdge() {
+        return BaseLogic.searchTile(10, 135, 3990, 135, true, Tile.GOAL, level);
+    }
+
+    /**
+     * Ten guards at the same spot checking the same target in one frame.
+     */
+    @Benchmark
+    public int sharedSight() {
+        level.nextFrame();
+
+        int seen = 0;
+        for (int i = 0; i < 10; i++) {
+            if (level.lineOfSight(150, 130, 1480, 260))
+                seen++;
+        }
+        return seen;
+    }
+
+    @Benchmark
+    public int sharedSightUncached() {
+        int seen = 0;
+        for (int i = 0; i < 10; i++) {
+            if (!BaseLogic.solidSpace(150, 130, 1480, 260, level))
+                seen++;
+        }
+        return seen;
+    }
+
+    @Benchmark
+    public boolean shortClearLineLegacy() {
+        return legacySearchTile(150, 130, 280, 240, false, Tile.SOLID, level) != null;
+    }
+
+    @Benchmark
+    public Vector2 longRayToFloorLegacy() {
+        return legacySearchTile(160, 130, 3900, 1965, true, Tile.SOLID, level);
+    }
+
+    @Benchmark
+    public Vector2 longRayToEdgeLegacy() {
+        return legacySearchTile(10, 135, 3990, 135, true, Tile.GOAL, level);
+    }
+
+    private static Vector2 legacySearchTile(int x0, int y0, final int x1, final int y1, final boolean continuesly, final Tile tile, final Level level) {
+        final int dx = Math.abs(x1 - x0);
+        final int dy = Math.abs(y1 - y0);
+        final int sx = (x0 < x1) ? 1 : -1;
+        final int sy = (y0 < y1) ? 1 : -1;
+        int err = dx - dy;
+
+        while (true) {
+            if (level.tileAt(x0, y0) == tile)
+                return new Vector2(x0, y0);
+            if (level.outOfBounds(x0, y0) || (!continuesly && x0 == x1 && y0 == y1))
+                return null;
+
+            final int e2 = 2 * err;
+            if (e2 > -dy) {
+                err -= dy;
+                x0 += sx;
+            }
+            if (e2 < dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+}
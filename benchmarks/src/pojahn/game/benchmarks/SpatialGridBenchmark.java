@@ -0,0 +1,117 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.BaseLogic;
+import pojahn.game.core.Entity;
+import pojahn.game.core.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proximity queries among {@code population} entities spread over a 10000x10000 level, answered by scanning every
+ * entity or by a {@link SpatialGrid}. {@code update} is the cost of keeping the grid in sync when every entity moves a
+ * few pixels, which the level pays once per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialGridBenchmark {
+
+    private static final float SIZE = 10_000;
+    private static final int POINTS = 1024;
+
+    @Param({"1000", "10000"})
+    public int population;
+
+    private List<Entity> entities;
+    private SpatialGrid grid;
+    private List<Entity> result;
+    private Entity watcher;
+    private float[] points;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        entities = new ArrayList<>(population);
+        grid = new SpatialGrid(SIZE, SIZE, 128);
+        result = new ArrayList<>();
+        watcher = new Entity();
+
+        for (int i = 0; i < population; i++) {
+            final Entity entity = new Entity();
+            entity.bounds.pos.set(random.nextFloat() * SIZE, random.nextFloat() * SIZE);
+            entity.bounds.size.width = 16 + random.nextInt(32);
+            entity.bounds.size.height = 16 + random.nextInt(32);
+            entities.add(entity);
+            grid.insert(entity);
+        }
+
+        points = new float[POINTS * 2];
+        for (int i = 0; i < points.length; i++)
+            points[i] = random.nextFloat() * SIZE;
+    }
+
+    @Benchmark
+    public Entity closestScan() {
+        nextPoint();
+        return BaseLogic.findClosest(watcher, entities);
+    }
+
+    @Benchmark
+    public Entity closestGrid() {
+        nextPoint();
+        return grid.closest(watcher.x(), watcher.y(), Entity.class, null);
+    }
+
+    @Benchmark
+    public int rectScan() {
+        nextPoint();
+        result.clear();
+
+        for (final Entity entity : entities) {
+            if (BaseLogic.rectanglesCollide(entity.bounds.pos.x, entity.bounds.pos.y, entity.width(), entity.height(), watcher.x(), watcher.y(), 300, 300))
+                result.add(entity);
+        }
+        return result.size();
+    }
+
+    @Benchmark
+    public int rectGrid() {
+        nextPoint();
+        result.clear();
+
+        return grid.queryRect(watcher.x(), watcher.y(), 300, 300, Entity.class, result).size();
+    }
+
+    @Benchmark
+    public SpatialGrid update() {
+        final float dx = (next++ & 1) == 0 ? 3 : -3;
+        for (final Entity entity : entities) {
+            entity.bounds.pos.x += dx;
+            grid.update(entity);
+        }
+        return grid;
+    }
+
+    private void nextPoint() {
+        final int i = (next++ % POINTS) * 2;
+        watcher.bounds.pos.set(points[i], points[i + 1]);
+    }
+}
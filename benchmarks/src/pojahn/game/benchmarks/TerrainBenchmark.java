@@ -0,0 +1,150 @@
+package pojahn.game.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Level;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bit-plane storage of {@link pojahn.game.essentials.stages.PixelBasedLevel} with the column arrays and
+ * boxed lookups it replaced. Every invocation queries 1024 pixels spread over a 4000x2000 map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private BenchmarkLevel level;
+    private LegacyLevel legacy;
+    private int[] xs, ys;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        level = new BenchmarkLevel(4000, 2000);
+        legacy = new LegacyLevel(BenchmarkLevel.draw(4000, 2000));
+
+        final Random random = new Random(42);
+        xs = new int[POINTS];
+        ys = new int[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextInt(4000);
+            ys[i] = random.nextInt(2000);
+        }
+    }
+
+    @Benchmark
+    public int tileAt() {
+        return countLethal(level);
+    }
+
+    @Benchmark
+    public int tileAtLegacy() {
+        return countLethal(legacy);
+    }
+
+    @Benchmark
+    public int isSolid() {
+        return countSolid(level);
+    }
+
+    @Benchmark
+    public int isSolidLegacy() {
+        return countSolid(legacy);
+    }
+
+    private int countLethal(final Level level) {
+        int count = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (level.tileAt(xs[i], ys[i]) == Level.Tile.LETHAL)
+                count++;
+        }
+        return count;
+    }
+
+    private int countSolid(final Level level) {
+        int count = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (level.isSolid(xs[i], ys[i]))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * The storage used before the bit-planes: one byte array per column and a boxed map from byte to tile.
+     */
+    private static class LegacyLevel extends Level {
+
+        private static final Map<Integer, Byte> COLOR_BYTE_MAP = Map.ofEntries(
+            new AbstractMap.SimpleEntry<>(0x7d7d7dff, (byte) 0),
+            new AbstractMap.SimpleEntry<>(0x5a5a5aff, (byte) 1),
+            new AbstractMap.SimpleEntry<>(0xff0000ff, (byte) 2),
+            new AbstractMap.SimpleEntry<>(0xffff00ff, (byte) 3));
+
+        private static final Map<Byte, Tile> BYTE_TILE_MAP = Map.ofEntries(
+            new AbstractMap.SimpleEntry<>((byte) 0, Tile.HOLLOW),
+            new AbstractMap.SimpleEntry<>((byte) 1, Tile.SOLID),
+            new AbstractMap.SimpleEntry<>((byte) 2, Tile.GOAL),
+            new AbstractMap.SimpleEntry<>((byte) 3, Tile.LETHAL));
+
+        private final byte[][] stageData;
+
+        LegacyLevel(final Pixmap map) {
+            stageData = new byte[map.getWidth()][map.getHeight()];
+
+            for (int x = 0; x < map.getWidth(); x++) {
+                for (int y = 0; y < map.getHeight(); y++) {
+                    stageData[x][y] = COLOR_BYTE_MAP.getOrDefault(map.getPixel(x, y), (byte) 0);
+                }
+            }
+            map.dispose();
+        }
+
+        @Override
+        protected Tile tileAtInternal(final int x, final int y) {
+            return BYTE_TILE_MAP.get(stageData[x][y]);
+        }
+
+        @Override
+        public int getWidth() {
+            return stageData.length;
+        }
+
+        @Override
+        public int getHeight() {
+            return stageData[0].length;
+        }
+
+        @Override
+        public void init(final Serializable meta) {
+        }
+
+        @Override
+        public void build() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
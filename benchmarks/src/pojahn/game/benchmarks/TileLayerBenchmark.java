@@ -0,0 +1,119 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Level.Tile;
+import pojahn.game.core.Level.TileLayer;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terrain queries on a 4000x2000 level with {@value #PLATFORMS} tile platforms that move every frame, compared with
+ * the linear scan over {@code Tile[][]} layers that the spatially indexed bitmasks replaced. Every invocation moves the
+ * platforms and then queries 1024 pixels spread over the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileLayerBenchmark {
+
+    private static final int PLATFORMS = 24;
+    private static final int POINTS = 1024;
+
+    private BenchmarkLevel level, bare;
+    private TileLayer[] layers;
+    private Tile[][][] legacyLayers;
+    private int[] layerXs, layerYs, xs, ys;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        Benchmarks.initGdx();
+        level = new BenchmarkLevel(4000, 2000);
+        bare = new BenchmarkLevel(4000, 2000);
+
+        final Random random = new Random(42);
+        layers = new TileLayer[PLATFORMS];
+        legacyLayers = new Tile[PLATFORMS][][];
+        layerXs = new int[PLATFORMS];
+        layerYs = new int[PLATFORMS];
+        for (int i = 0; i < PLATFORMS; i++) {
+            legacyLayers[i] = new Tile[96][16];
+            for (final Tile[] column : legacyLayers[i])
+                Arrays.fill(column, Tile.SOLID);
+
+            layers[i] = new TileLayer(legacyLayers[i]);
+            layerXs[i] = random.nextInt(3800);
+            layerYs[i] = random.nextInt(1900);
+            level.addTileLayer(layers[i]);
+        }
+
+        xs = new int[POINTS];
+        ys = new int[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextInt(4000);
+            ys[i] = random.nextInt(2000);
+        }
+    }
+
+    @Benchmark
+    public int tileAt() {
+        frame++;
+        for (int i = 0; i < PLATFORMS; i++)
+            layers[i].setPosition(layerXs[i] + offset(i), layerYs[i]);
+
+        int count = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (level.tileAt(xs[i], ys[i]) == Tile.SOLID)
+                count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tileAtLegacy() {
+        frame++;
+
+        int count = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (legacyTileAt(xs[i], ys[i]) == Tile.SOLID)
+                count++;
+        }
+        return count;
+    }
+
+    private int offset(final int platform) {
+        return (frame + platform * 13) % 100;
+    }
+
+    /**
+     * The lookup used before the grid: every layer is checked against every pixel, in the order they were added.
+     */
+    private Tile legacyTileAt(final int x, final int y) {
+        if (bare.outOfBounds(x, y))
+            return Tile.HOLLOW;
+
+        for (int i = 0; i < PLATFORMS; i++) {
+            final Tile[][] layer = legacyLayers[i];
+            final int relX = x - layerXs[i] - offset(i);
+            final int relY = y - layerYs[i];
+
+            if (relX >= 0 && relY >= 0 && relX < layer.length && relY < layer[0].length && layer[relX][relY] != null)
+                return layer[relX][relY];
+        }
+        return bare.tileAt(x, y);
+    }
+}
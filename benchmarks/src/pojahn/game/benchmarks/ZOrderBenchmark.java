@@ -0,0 +1,96 @@
+package pojahn.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojahn.game.core.Entity;
+import pojahn.game.core.EntityStore;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of particle spawning: {@code churn} entities with a random z-index replace as many old ones, after which
+ * the store is brought back in z-order either by a full sort or by merging the new entities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZOrderBenchmark {
+
+    private static final Comparator<Entity> Z_ORDER = Comparator.comparingInt(Entity::getZIndex);
+
+    @Param({"1000", "5000"})
+    public int population;
+
+    @Param({"20"})
+    public int churn;
+
+    private EntityStore sorted, merged;
+    private Entity[] sortedLive, mergedLive;
+    private Random sortedRandom, mergedRandom;
+
+    @Setup
+    public void setup() {
+        sorted = new EntityStore();
+        merged = new EntityStore();
+        sortedLive = new Entity[population];
+        mergedLive = new Entity[population];
+
+        final Random random = new Random(1);
+        for (int i = 0; i < population; i++) {
+            final int zIndex = random.nextInt(10);
+            sortedLive[i] = entity(zIndex);
+            mergedLive[i] = entity(zIndex);
+            sorted.add(sortedLive[i]);
+            merged.add(mergedLive[i]);
+        }
+        sorted.sort(Z_ORDER);
+        merged.sort(Z_ORDER);
+
+        sortedRandom = new Random(2);
+        mergedRandom = new Random(2);
+    }
+
+    @Benchmark
+    public EntityStore fullSort() {
+        churn(sorted, sortedLive, sortedRandom);
+        sorted.sort(Z_ORDER);
+        return sorted;
+    }
+
+    @Benchmark
+    public EntityStore mergeAppended() {
+        churn(merged, mergedLive, mergedRandom);
+        merged.mergeAppended(Z_ORDER);
+        return merged;
+    }
+
+    private void churn(final EntityStore store, final Entity[] live, final Random random) {
+        for (int i = 0; i < churn; i++) {
+            final int index = random.nextInt(population);
+            final Entity entity = live[index];
+            store.remove(entity);
+            entity.zIndex(random.nextInt(10));
+            store.add(entity);
+        }
+    }
+
+    private static Entity entity(final int zIndex) {
+        final Entity entity = new Entity();
+        entity.zIndex(zIndex);
+        return entity;
+    }
+}
@@ -0,0 +1,71 @@
+package pojahn.game.benchmarks;
+
+import pojahn.game.essentials.AllocationMeter;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checks that the queries that are meant to be allocation-free still are, by reading the bytes the thread allocated
+ * around a loop of calls after the JIT has warmed up. Exits with status 1 if any of them allocated, so the
+ * {@code zeroAllocation} task fails the build.
+ * <p>
+ * Run it with {@code gradlew benchmarks:zeroAllocation}.
+ */
+public class ZeroAllocation {
+
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 1_000_000;
+
+    private static class Query {
+
+        final String name;
+        final BooleanSupplier call;
+
+        Query(final String name, final BooleanSupplier call) {
+            this.name = name;
+            this.call = call;
+        }
+    }
+
+    public static void main(final String[] args) {
+        final AllocationMeter meter = new AllocationMeter();
+        if (!meter.isSupported()) {
+            System.out.println("The allocations of a thread can't be read on this JVM, skipping.");
+            return;
+        }
+
+        final OccupancyBenchmark occupancy = new OccupancyBenchmark();
+        occupancy.setup();
+
+        final List<Query> queries = List.of(
+            new Query("MobileEntity.occupiedAt", occupancy::occupiedAt),
+            new Query("Level.tilesOnOutline", occupancy::outline));
+
+        int failures = 0;
+        for (final Query query : queries) {
+            run(query.call, WARMUP);
+
+            final long start = meter.allocatedBytes();
+            final int hits = run(query.call, CALLS);
+            final long bytes = meter.bytesSince(start);
+
+            System.out.println(query.name + ": " + bytes + " B over " + CALLS + " calls (" + hits + " hits)" +
+                (bytes == 0 ? "" : " - ALLOCATES"));
+
+            if (bytes != 0)
+                failures++;
+        }
+
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int run(final BooleanSupplier call, final int calls) {
+        int hits = 0;
+        for (int i = 0; i < calls; i++) {
+            if (call.getAsBoolean())
+                hits++;
+        }
+        return hits;
+    }
+}
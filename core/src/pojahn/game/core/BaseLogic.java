@@ -2,23 +2,21 @@ package pojahn.game.core;
 
 import com.badlogic.gdx.math.Circle;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.math.Vector3;
 import pojahn.game.core.Level.Tile;
+import pojahn.game.essentials.AlphaMask;
 import pojahn.game.essentials.Direction;
 import pojahn.game.essentials.Image2D;
 import pojahn.game.essentials.geom.Bounds;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 public class BaseLogic {
 
+    private static final int FIXED_SHIFT = 16;
+    private static final double FIXED_ONE = 1 << FIXED_SHIFT;
+
     public static boolean pointRectangleOverlap(final float x, final float y, final float w, final float h, final int px, final float py) {
         return px >= x && px <= x + w && py >= y && py <= y + h;
     }
@@ -45,26 +43,20 @@ public class BaseLogic {
             || (x1 > x2 + width2));
     }
 
+    /**
+     * Tests two rectangles that are rotated around their centers. The first is projected onto the axes of the second,
+     * whose rotation is read from the trigonometry cached in its bounds. Only the cosine and sine of the angle between
+     * the two are computed per call, unless the second is not rotated.
+     */
     public static boolean rotatedRectanglesCollide(final Bounds bounds1, final Bounds bounds2) {
-        final RotRect rr1 = new RotRect();
-        rr1.C = bounds1.center();
-        rr1.S = new Vector2(bounds1.size.width / 2, bounds1.size.height / 2);
-        rr1.ang = (float) Math.toRadians(bounds1.rotation);
-
-        final RotRect rr2 = new RotRect();
-        rr2.C = bounds2.center();
-        rr2.S = new Vector2(bounds2.size.width / 2, bounds2.size.height / 2);
-        rr2.ang = (float) Math.toRadians(bounds2.rotation);
-
-        final Vector2 A;
-        Vector2 B;
-        Vector2 C;
-        Vector2 BL;
-        final Vector2 TR;
-
-        final float ang = rr1.ang - rr2.ang;
-        float cosa = (float) Math.cos(ang);
-        final float sina = (float) Math.sin(ang);
+        final float halfWidth1 = bounds1.size.width / 2, halfHeight1 = bounds1.size.height / 2;
+        final float halfWidth2 = bounds2.size.width / 2, halfHeight2 = bounds2.size.height / 2;
+        final float ang1 = (float) Math.toRadians(bounds1.rotation);
+        final float ang2 = (float) Math.toRadians(bounds2.rotation);
+
+        final float ang = ang1 - ang2;
+        float cosa = ang2 == 0 ? bounds1.cos() : (float) Math.cos(ang);
+        final float sina = ang2 == 0 ? bounds1.sin() : (float) Math.sin(ang);
         float t;
         float x;
         float a;
@@ -72,201 +64,324 @@ public class BaseLogic {
         float ext1;
         float ext2;
 
-        C = new Vector2(rr2.C);
-        subVectors2D(C, rr1.C);
-
-        rotateVector2DClockwise(C, rr2.ang);
-
-        BL = new Vector2(C);
-        TR = new Vector2(C);
-        subVectors2D(BL, rr2.S);
-        addVectors2D(TR, rr2.S);
-
-        A = new Vector2();
-        B = new Vector2();
-        A.x = -rr1.S.y * sina;
-        B.x = A.x;
-        t = rr1.S.x * cosa;
-        A.x += t;
-        B.x -= t;
-        A.y = rr1.S.y * cosa;
-        B.y = A.y;
-        t = rr1.S.x * sina;
-        A.y += t;
-        B.y -= t;
+        // The center of the second relative to the first, turned to the axes of the second.
+        t = bounds2.pos.x + halfWidth2 - (bounds1.pos.x + halfWidth1);
+        final float cy = bounds2.pos.y + halfHeight2 - (bounds1.pos.y + halfHeight1);
+        final float cx = t * bounds2.cos() + cy * bounds2.sin();
+        final float cy2 = -t * bounds2.sin() + cy * bounds2.cos();
+
+        final float blX = cx - halfWidth2, blY = cy2 - halfHeight2;
+        final float trX = cx + halfWidth2, trY = cy2 + halfHeight2;
+
+        float aX, aY, bX, bY;
+        aX = -halfHeight1 * sina;
+        bX = aX;
+        t = halfWidth1 * cosa;
+        aX += t;
+        bX -= t;
+        aY = halfHeight1 * cosa;
+        bY = aY;
+        t = halfWidth1 * sina;
+        aY += t;
+        bY -= t;
 
         t = sina * cosa;
 
         if (t < 0) {
-            t = A.x;
-            A.x = B.x;
-            B.x = t;
-            t = A.y;
-            A.y = B.y;
-            B.y = t;
+            t = aX;
+            aX = bX;
+            bX = t;
+            t = aY;
+            aY = bY;
+            bY = t;
         }
         if (sina < 0) {
-            B.x = -B.x;
-            B.y = -B.y;
+            bX = -bX;
+            bY = -bY;
         }
-        if (B.x > TR.x || B.x > -BL.x)
+        if (bX > trX || bX > -blX)
             return false;
 
         if (t == 0) {
-            ext1 = A.y;
+            ext1 = aY;
             ext2 = -ext1;
         } else {
-            x = BL.x - A.x;
-            a = TR.x - A.x;
-            ext1 = A.y;
+            x = blX - aX;
+            a = trX - aX;
+            ext1 = aY;
 
             if (a * x > 0) {
-                dx = A.x;
+                dx = aX;
                 if (x < 0) {
-                    dx -= B.x;
-                    ext1 -= B.y;
+                    dx -= bX;
+                    ext1 -= bY;
                     x = a;
                 } else {
-                    dx += B.x;
-                    ext1 += B.y;
+                    dx += bX;
+                    ext1 += bY;
                 }
                 ext1 *= x;
                 ext1 /= dx;
-                ext1 += A.y;
+                ext1 += aY;
             }
 
-            x = BL.x + A.x;
-            a = TR.x + A.x;
-            ext2 = -A.y;
+            x = blX + aX;
+            a = trX + aX;
+            ext2 = -aY;
 
             if (a * x > 0) {
-                dx = -A.x;
+                dx = -aX;
 
                 if (x < 0) {
-                    dx -= B.x;
-                    ext2 -= B.y;
+                    dx -= bX;
+                    ext2 -= bY;
                     x = a;
                 } else {
-                    dx += B.x;
-                    ext2 += B.y;
+                    dx += bX;
+                    ext2 += bY;
                 }
                 ext2 *= x;
                 ext2 /= dx;
-                ext2 -= A.y;
+                ext2 -= aY;
             }
         }
-        return !((ext1 < BL.y && ext2 < BL.y) || (ext1 > TR.y && ext2 > TR.y));
+        return !((ext1 < blY && ext2 < blY) || (ext1 > trY && ext2 > trY));
+    }
+
+    /**
+     * Tests a rectangle that is rotated around its center against a circle, by moving the center of the circle into
+     * the frame of the rectangle and comparing the distance to the closest point of the rectangle with the radius.
+     */
+    public static boolean rotatedRectangleCircleCollide(final Bounds rectangle, final float circleX, final float circleY, final float radius) {
+        final float halfWidth = rectangle.size.width / 2;
+        final float halfHeight = rectangle.size.height / 2;
+        final float dx = circleX - (rectangle.pos.x + halfWidth);
+        final float dy = circleY - (rectangle.pos.y + halfHeight);
+        final float cos = rectangle.cos();
+        final float sin = rectangle.sin();
+
+        final float localX = dx * cos + dy * sin;
+        final float localY = -dx * sin + dy * cos;
+        final float outsideX = Math.max(Math.abs(localX) - halfWidth, 0);
+        final float outsideY = Math.max(Math.abs(localY) - halfHeight, 0);
+
+        return outsideX * outsideX + outsideY * outsideY <= radius * radius;
+    }
+
+    public static boolean rotatedRectangleCircleCollide(final Bounds rectangle, final Circle circle) {
+        return rotatedRectangleCircleCollide(rectangle, circle.x, circle.y, circle.radius);
     }
 
     public static boolean circleRectangleCollide(final Circle circle, final Rectangle rectangle) {
-        final float circleDistanceX = Math.abs((circle.x) - (rectangle.x + rectangle.width / 2));
-        final float circleDistanceY = Math.abs((circle.y) - (rectangle.y + rectangle.height / 2));
-        final float radius = circle.radius;
+        return circleRectangleCollide(circle.x, circle.y, circle.radius, rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+    }
+
+    public static boolean circleRectangleCollide(final float circleX, final float circleY, final float radius,
+                                                 final float x, final float y, final float width, final float height) {
+        final float circleDistanceX = Math.abs((circleX) - (x + width / 2));
+        final float circleDistanceY = Math.abs((circleY) - (y + height / 2));
 
-        if (circleDistanceX > (rectangle.width / 2 + radius) || (circleDistanceY > (rectangle.height / 2 + radius)))
+        if (circleDistanceX > (width / 2 + radius) || (circleDistanceY > (height / 2 + radius)))
             return false;
 
-        if ((circleDistanceX <= (rectangle.width / 2)) || (circleDistanceY <= (rectangle.height / 2)))
+        if ((circleDistanceX <= (width / 2)) || (circleDistanceY <= (height / 2)))
             return true;
 
-        final double cornerDistance_sq = Math.pow(circleDistanceX - rectangle.width / 2, 2) +
-                Math.pow(circleDistanceY - rectangle.height / 2, 2);
+        final double cornerDistance_sq = Math.pow(circleDistanceX - width / 2, 2) +
+                Math.pow(circleDistanceY - height / 2, 2);
 
         return (cornerDistance_sq <= (radius * radius));
     }
 
     public static boolean circleVsCircle(final Circle c1, final Circle c2) {
-        final float dx = c2.x - c1.x;
-        final float dy = c2.y - c1.y;
-        final float d = c1.radius + c2.radius;
+        return circleVsCircle(c1.x, c1.y, c1.radius, c2.x, c2.y, c2.radius);
+    }
+
+    public static boolean circleVsCircle(final float x1, final float y1, final float radius1,
+                                         final float x2, final float y2, final float radius2) {
+        final float dx = x2 - x1;
+        final float dy = y2 - y1;
+        final float d = radius1 + radius2;
         return (dx * dx + dy * dy) < (d * d);
     }
 
     /**
      * Performs a pixel perfect collision check.
      * Precondition: Rotation == 0, offsetX and offsetY == 0, bounds.width and height are equal to the size of the image.
+     * <p>
+     * The masks of the images are compared up to 64 pixels at a time. A horizontally flipped image is read through its
+     * mirrored mask.
      *
      * @return True if the two entities are colliding.
      */
     public static boolean pixelPerfect(
         final Rectangle rec1, final Image2D image1, final boolean flipX1, final boolean flipY1,
         final Rectangle rec2, final Image2D image2, final boolean flipX2, final boolean flipY2) {
+        return pixelPerfect(rec1.x, rec1.y, image1, flipX1, flipY1, rec2.x, rec2.y, image2, flipX2, flipY2);
+    }
+
+    /**
+     * Same as {@link #pixelPerfect(Rectangle, Image2D, boolean, boolean, Rectangle, Image2D, boolean, boolean)}, with
+     * the images placed at the given coordinates.
+     */
+    public static boolean pixelPerfect(
+        final float x1, final float y1, final Image2D image1, final boolean flipX1, final boolean flipY1,
+        final float x2, final float y2, final Image2D image2, final boolean flipX2, final boolean flipY2) {
 
         final int width1 = image1.getWidth();
         final int width2 = image2.getWidth();
         final int height1 = image1.getHeight();
         final int height2 = image2.getHeight();
-        final int top = (int) Math.max(rec1.y, rec2.y);
-        final int bottom = (int) Math.min(rec1.y + height1, rec2.y + height2);
-        final int left = (int) Math.max(rec1.x, rec2.x);
-        final int right = (int) Math.min(rec1.x + width1, rec2.x + width2);
+        final int top = (int) Math.max(y1, y2);
+        final int bottom = (int) Math.min(y1 + height1, y2 + height2);
+        final int left = (int) Math.max(x1, x2);
+        final int right = (int) Math.min(x1 + width1, x2 + width2);
+
+        final AlphaMask mask1 = flipX1 ? image1.getMask().mirrored() : image1.getMask();
+        final AlphaMask mask2 = flipX2 ? image2.getMask().mirrored() : image2.getMask();
+        final int shift1 = maskShift(x1, flipX1);
+        final int shift2 = maskShift(x2, flipX2);
+        final int from = Math.min(right, Math.max(left, Math.max(shift1, shift2)));
+        final int to = Math.max(from, Math.min(right, Math.min(shift1 + width1, shift2 + width2)));
 
         for (int y = top; y < bottom; y++) {
-            for (int x = left; x < right; x++) {
-                final int x1 = (int) (flipX1 ? width1 - (x - rec1.x) - 1 : x - rec1.x);
-                final int y1 = (int) (flipY1 ? height1 - (y - rec1.y) - 1 : y - rec1.y);
-                final int x2 = (int) (flipX2 ? width2 - (x - rec2.x) - 1 : x - rec2.x);
-                final int y2 = (int) (flipY2 ? height2 - (y - rec2.y) - 1 : y - rec2.y);
+            final int row1 = (int) (flipY1 ? height1 - (y - y1) - 1 : y - y1);
+            final int row2 = (int) (flipY2 ? height2 - (y - y2) - 1 : y - y2);
 
-                final int alpha1 = image1.getPixel(x1, y1) & 0x000000FF;
-                final int alpha2 = image2.getPixel(x2, y2) & 0x000000FF;
+            if (from < to && mask1.overlaps(row1, from - shift1, mask2, row2, from - shift2, to - from))
+                return true;
 
-                if (alpha1 != 0 && alpha2 != 0)
+            for (int x = left; x < from; x++) {
+                if (opaqueAt(mask1, x - shift1, row1) && opaqueAt(mask2, x - shift2, row2))
+                    return true;
+            }
+            for (int x = to; x < right; x++) {
+                if (opaqueAt(mask1, x - shift1, row1) && opaqueAt(mask2, x - shift2, row2))
                     return true;
             }
         }
         return false;
     }
 
-    public static boolean pixelPerfectRotation(final Matrix4 m1, final Image2D img1, final Matrix4 m2, final Image2D img2) { //TODO: Not even working...
-        final Matrix4 AtoB = m1.mul(m2.inv());
-        final Matrix4 norM = AtoB.cpy().toNormalMatrix();
+    /**
+     * A pixel at x is read from column {@code x - shift} of the mask, clamped to the mask. Truncating
+     * {@code x - rec.x} rounds down for the mask, while the mirrored mask of a flipped image sees it rounded up.
+     */
+    private static int maskShift(final float x, final boolean flipped) {
+        return (int) (flipped ? Math.floor(x) : Math.ceil(x));
+    }
+
+    private static boolean opaqueAt(final AlphaMask mask, final int column, final int row) {
+        return mask.isOpaque(MathUtils.clamp(column, 0, mask.getWidth() - 1), row);
+    }
 
-        final Vector3 stepX = Vector3.X.cpy().mul(norM);
-        final Vector3 stepY = Vector3.Y.cpy().mul(norM);
-        final Vector3 yPosInB = Vector3.Zero.cpy().mul(AtoB);
+    /**
+     * Performs a pixel perfect collision check between two images that are drawn rotated around the center of their
+     * bounds. Apart from the rotation, the preconditions of
+     * {@link #pixelPerfect(Rectangle, Image2D, boolean, boolean, Rectangle, Image2D, boolean, boolean)} apply.
+     * <p>
+     * The opaque pixels of the smaller image are found through its mask, and the center of each is looked up in the
+     * other image. Each row is first clipped to the columns that land within the other image, and the position in the
+     * other image is stepped along the row in 16.16 fixed-point.
+     *
+     * @return True if the two entities are colliding.
+     */
+    public static boolean pixelPerfectRotation(
+        final Bounds bounds1, final Image2D image1, final boolean flipX1, final boolean flipY1,
+        final Bounds bounds2, final Image2D image2, final boolean flipX2, final boolean flipY2) {
 
-        final int widthA = img1.getWidth();
-        final int widthB = img2.getWidth();
-        final int heightA = img1.getHeight();
-        final int heightB = img2.getHeight();
+        if (image2.getWidth() * image2.getHeight() < image1.getWidth() * image1.getHeight())
+            return rotatedOverlap(bounds2, image2, flipX2, flipY2, bounds1, image1, flipX1, flipY1);
 
-        for (int yA = 0; yA < heightA; yA++) {
-            final Vector3 posInB = yPosInB.cpy();
+        return rotatedOverlap(bounds1, image1, flipX1, flipY1, bounds2, image2, flipX2, flipY2);
+    }
 
-            for (int xA = 0; xA < widthA; xA++) {
-                final int xB = Math.round(posInB.x);
-                final int yB = Math.round(posInB.y);
+    private static boolean rotatedOverlap(
+        final Bounds boundsA, final Image2D imageA, final boolean flipXA, final boolean flipYA,
+        final Bounds boundsB, final Image2D imageB, final boolean flipXB, final boolean flipYB) {
+
+        final double radA = Math.toRadians(boundsA.rotation);
+        final double radB = Math.toRadians(boundsB.rotation);
+        final double cosA = Math.cos(radA), sinA = Math.sin(radA);
+        final double cosB = Math.cos(radB), sinB = Math.sin(radB);
+        final double halfWidthA = boundsA.size.width / 2, halfHeightA = boundsA.size.height / 2;
+        final double halfWidthB = boundsB.size.width / 2, halfHeightB = boundsB.size.height / 2;
+        final double dx = boundsA.pos.x + halfWidthA - (boundsB.pos.x + halfWidthB);
+        final double dy = boundsA.pos.y + halfHeightA - (boundsB.pos.y + halfHeightB);
+
+        if (Math.abs(dx) > Math.abs(cosA) * halfWidthA + Math.abs(sinA) * halfHeightA + Math.abs(cosB) * halfWidthB + Math.abs(sinB) * halfHeightB ||
+            Math.abs(dy) > Math.abs(sinA) * halfWidthA + Math.abs(cosA) * halfHeightA + Math.abs(sinB) * halfWidthB + Math.abs(cosB) * halfHeightB)
+            return false;
+
+        final AlphaMask maskA = flipXA ? imageA.getMask().mirrored() : imageA.getMask();
+        final AlphaMask maskB = flipXB ? imageB.getMask().mirrored() : imageB.getMask();
+        final int widthA = maskA.getWidth(), heightA = maskA.getHeight();
+        final int widthB = maskB.getWidth(), heightB = maskB.getHeight();
+
+        // Where the center of pixel 0,0 of A is in B. A step along a row of A moves (cos, sin) in B, and a step to the
+        // next row moves (-sin, cos).
+        final double cos = cosA * cosB + sinA * sinB, sin = sinA * cosB - cosA * sinB;
+        final double invCos = 1 / cos, invSin = 1 / sin;
+        final double localX = .5 - halfWidthA, localY = .5 - halfHeightA;
+        final double originX = cos * localX - sin * localY + cosB * dx + sinB * dy + halfWidthB;
+        final double originY = sin * localX + cos * localY - sinB * dx + cosB * dy + halfHeightB;
+        final long stepX = Math.round(cos * FIXED_ONE), stepY = Math.round(sin * FIXED_ONE);
+
+        for (int v = 0; v < heightA; v++) {
+            final double rowX = originX - sin * v;
+            final double rowY = originY + cos * v;
+
+            double first = 0, last = widthA - 1;
+            if (cos > 0) {
+                first = Math.max(first, -rowX * invCos);
+                last = Math.min(last, (widthB - rowX) * invCos);
+            } else if (cos < 0) {
+                first = Math.max(first, (widthB - rowX) * invCos);
+                last = Math.min(last, -rowX * invCos);
+            } else if (rowX < 0 || rowX >= widthB) {
+                continue;
+            }
+            if (sin > 0) {
+                first = Math.max(first, -rowY * invSin);
+                last = Math.min(last, (heightB - rowY) * invSin);
+            } else if (sin < 0) {
+                first = Math.max(first, (heightB - rowY) * invSin);
+                last = Math.min(last, -rowY * invSin);
+            } else if (rowY < 0 || rowY >= heightB) {
+                continue;
+            }
 
-                if (0 <= xB && xB < widthB && 0 <= yB && yB < heightB) {
-                    final int alpha1 = img1.getPixel(xA, yA) & 0x000000FF;
-                    final int alpha2 = img2.getPixel(xB, yB) & 0x000000FF;
+            // Widened by a column since the fixed-point steps are not exact. Every pixel is bounds checked anyway.
+            final int from = Math.max(0, (int) Math.floor(first) - 1);
+            final int to = Math.min(widthA - 1, (int) Math.ceil(last) + 1);
+            if (from > to)
+                continue;
 
-                    if (alpha1 != 0 && alpha2 != 0)
+            final int rowA = flipYA ? heightA - 1 - v : v;
+            final long fixedX = Math.round(rowX * FIXED_ONE), fixedY = Math.round(rowY * FIXED_ONE);
+
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long bits = maskA.word(rowA, word);
+                if (word == from >>> 6)
+                    bits &= -1L << from;
+                if (word == to >>> 6)
+                    bits &= -1L >>> (63 - (to & 63));
+
+                while (bits != 0) {
+                    final int u = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    final int x = (int) ((fixedX + u * stepX) >> FIXED_SHIFT);
+                    final int y = (int) ((fixedY + u * stepY) >> FIXED_SHIFT);
+
+                    if (x >= 0 && x < widthB && y >= 0 && y < heightB && maskB.isOpaque(x, flipYB ? heightB - 1 - y : y))
                         return true;
+
+                    bits &= bits - 1;
                 }
-                posInB.x += stepX.x;
-                posInB.y += stepX.y;
             }
-            yPosInB.x += stepY.x;
-            yPosInB.y += stepY.y;
         }
         return false;
     }
 
-    public static Matrix4 buildMatrix(final Entity entity) {
-        return new Matrix4(new Vector3(entity.x(), entity.y(), 0),
-                new Quaternion(new Vector3(0, 0, 1), -entity.getRotation()),
-                new Vector3(1, 1, 1));
-
-//		return new Matrix4()
-//				.idt()
-//				.setToTranslation(-entity.halfWidth(), -entity.halfHeight(), 0)
-//				.rotate(0, 0, 1, -entity.getRotation())
-//				.scl(1, 1, 1)
-//				.trn(entity.x(), entity.y(), 0);
-    }
-
     public static double getAngle(final float x1, final float y1, final float x2, final float y2) {
         final float deltaX = x2 - x1;
         final float deltaY = y2 - y1;
@@ -282,17 +397,42 @@ public class BaseLogic {
         return distance(e1.x(), e1.y(), e2.x(), e2.y());
     }
 
+    /**
+     * Linear search of the given targets. Use {@link Level#findClosest(Entity, Class)} to search the whole level.
+     */
     public static Entity findClosest(final Entity watcher, final List<? extends Entity> targets) {
-        return targets.stream()
-            .min(Comparator.comparing(watcher::dist))
-            .orElse(null);
+        Entity closest = null;
+        float closestDist = 0;
+
+        for (final Entity target : targets) {
+            final float dist = watcher.dist(target);
+            if (closest == null || dist < closestDist) {
+                closest = target;
+                closestDist = dist;
+            }
+        }
+        return closest;
     }
 
+    /**
+     * Linear search of the given targets. Use {@link Level#findClosestSeeable(Entity, Class)} to search the whole
+     * level.
+     */
     public static Entity findClosestSeeable(final Entity watcher, final List<? extends Entity> targets) {
-        return targets.stream()
-            .filter(watcher::canSee)
-            .min(Comparator.comparing(watcher::dist))
-            .orElse(null);
+        Entity closest = null;
+        float closestDist = 0;
+
+        for (final Entity target : targets) {
+            if (!watcher.canSee(target))
+                continue;
+
+            final float dist = watcher.dist(target);
+            if (closest == null || dist < closestDist) {
+                closest = target;
+                closestDist = dist;
+            }
+        }
+        return closest;
     }
 
     public static boolean lineIntersects(final Vector2 p1, final Vector2 p2, final Vector2 p3, final Vector2 p4) {
@@ -327,21 +467,58 @@ public class BaseLogic {
      * Returns the bounding box of the (rotated) rectangle.
      */
     public static Rectangle getBoundingBox(final Bounds bounds) {
-        final Vector2 c = bounds.center();
-        final Vector2 p1 = rotatePoint(bounds.pos.x, bounds.pos.y, c.x, c.y, bounds.rotation);
-        final Vector2 p2 = rotatePoint(bounds.pos.x + bounds.size.width, bounds.pos.y, c.x, c.y, bounds.rotation);
-        final Vector2 p3 = rotatePoint(bounds.pos.x + bounds.size.width, bounds.pos.y + bounds.size.height, c.x, c.y, bounds.rotation);
-        final Vector2 p4 = rotatePoint(bounds.pos.x, bounds.pos.y + bounds.size.height, c.x, c.y, bounds.rotation);
+        return getBoundingBox(bounds, new Rectangle());
+    }
 
-        final List<Float> xcords = Arrays.asList(p1.x, p2.x, p3.x, p4.x);
-        final List<Float> ycords = Arrays.asList(p1.y, p2.y, p3.y, p4.y);
+    /**
+     * Stores the bounding box of the (rotated) rectangle in the given rectangle.
+     *
+     * @return The given rectangle.
+     */
+    public static Rectangle getBoundingBox(final Bounds bounds, final Rectangle dest) {
+        final float x1 = bounds.pos.x;
+        final float y1 = bounds.pos.y;
+        final float x2 = bounds.pos.x + bounds.size.width;
+        final float y2 = bounds.pos.y + bounds.size.height;
+
+        if (bounds.rotation % 360 == 0) {
+            final float minX = min(x1, x2);
+            final float minY = min(y1, y2);
+            return dest.set(minX, minY, max(x1, x2) - minX, max(y1, y2) - minY);
+        }
+
+        final float cx = bounds.pos.x + bounds.size.width / 2;
+        final float cy = bounds.pos.y + bounds.size.height / 2;
+        final float angleInRadians = (float) (bounds.rotation * (Math.PI / 180));
+        final float cosTheta = MathUtils.cos(angleInRadians);
+        final float sinTheta = MathUtils.sin(angleInRadians);
 
-        final float minX = Collections.min(xcords);
-        final float maxX = Collections.max(xcords);
-        final float minY = Collections.min(ycords);
-        final float maxY = Collections.max(ycords);
+        final float px1 = cosTheta * (x1 - cx) - sinTheta * (y1 - cy) + cx;
+        final float py1 = sinTheta * (x1 - cx) + cosTheta * (y1 - cy) + cy;
+        final float px2 = cosTheta * (x2 - cx) - sinTheta * (y1 - cy) + cx;
+        final float py2 = sinTheta * (x2 - cx) + cosTheta * (y1 - cy) + cy;
+        final float px3 = cosTheta * (x2 - cx) - sinTheta * (y2 - cy) + cx;
+        final float py3 = sinTheta * (x2 - cx) + cosTheta * (y2 - cy) + cy;
+        final float px4 = cosTheta * (x1 - cx) - sinTheta * (y2 - cy) + cx;
+        final float py4 = sinTheta * (x1 - cx) + cosTheta * (y2 - cy) + cy;
 
-        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+        final float minX = min(min(min(px1, px2), px3), px4);
+        final float maxX = max(max(max(px1, px2), px3), px4);
+        final float minY = min(min(min(py1, py2), py3), py4);
+        final float maxY = max(max(max(py1, py2), py3), py4);
+
+        return dest.set(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Orders floats the way {@link Float#compareTo(Float)} does, keeping the first of two equal values.
+     */
+    private static float min(final float a, final float b) {
+        return Float.compare(b, a) < 0 ? b : a;
+    }
+
+    private static float max(final float a, final float b) {
+        return Float.compare(b, a) > 0 ? b : a;
     }
 
     public static Vector2 rotatePoint(final Vector2 point, final Vector2 center, final float rotation) {
@@ -359,14 +536,24 @@ public class BaseLogic {
      * @return The point that contains the rotated coordinates.
      */
     public static Vector2 rotatePoint(final float x, final float y, final float cx, final float cy, final float rotation) {
+        return rotatePoint(x, y, cx, cy, rotation, new Vector2());
+    }
+
+    /**
+     * Same as {@link #rotatePoint(float, float, float, float, float)}, but stores the rotated coordinates in the given
+     * vector.
+     *
+     * @return The given vector.
+     */
+    public static Vector2 rotatePoint(final float x, final float y, final float cx, final float cy, final float rotation, final Vector2 dest) {
         if (rotation % 360 == 0)
-            return new Vector2(x, y);
+            return dest.set(x, y);
 
         final float angleInRadians = (float) (rotation * (Math.PI / 180));
         final float cosTheta = MathUtils.cos(angleInRadians);
         final float sinTheta = MathUtils.sin(angleInRadians);
 
-        return new Vector2(
+        return dest.set(
                 (cosTheta * (x - cx) - sinTheta * (y - cy) + cx),
                 (sinTheta * (x - cx) + cosTheta * (y - cy) + cy));
     }
@@ -393,7 +580,9 @@ public class BaseLogic {
 
     /**
      * Iterates through the specified line(and continues in the specified path if set), searching for the given tile type.<br>
-     * Return a non-null value if the given tile was found between the two points.
+     * Return a non-null value if the given tile was found between the two points.<br>
+     * Parts of the line that cross cells the level reports as {@link Level#emptyCell(Tile, int, int) empty} are
+     * skipped in one jump, landing on the same pixel the step by step walk would have reached.
      *
      * @param x0          The x position of the first point.
      * @param y0          The y position of the first point.
@@ -408,6 +597,9 @@ public class BaseLogic {
         final int dy = Math.abs(y1 - y0);
         final int sx = (x0 < x1) ? 1 : -1;
         final int sy = (y0 < y1) ? 1 : -1;
+        final boolean xMajor = dx >= dy;
+        final int major = xMajor ? dx : dy;
+        final int minor = xMajor ? dy : dx;
         int err = dx - dy;
 
         while (true) {
@@ -416,6 +608,49 @@ public class BaseLogic {
             if (level.outOfBounds(x0, y0) || (!continuesly && x0 == x1 && y0 == y1))
                 return null;
 
+            final int size = major > 0 ? level.emptyCell(tile, x0, y0) : 0;
+            if (size > 0) {
+                final int cellX = x0 - Math.floorMod(x0, size);
+                final int cellY = y0 - Math.floorMod(y0, size);
+
+                if (!level.onLayers(cellX, cellY, cellX + size, cellY + size)) {
+                    final int posMajor = xMajor ? x0 : y0;
+                    final int posMinor = xMajor ? y0 : x0;
+                    final int stepMajor = xMajor ? sx : sy;
+                    final int stepMinor = xMajor ? sy : sx;
+                    final int cellMajor = xMajor ? cellX : cellY;
+                    final int cellMinor = xMajor ? cellY : cellX;
+
+                    final long v0 = major - 2L * (xMajor ? err : -err);
+                    long steps = stepMajor > 0 ? cellMajor + size - posMajor : posMajor - cellMajor + 1;
+                    if (minor > 0) {
+                        final long minorSteps = stepMinor > 0 ? cellMinor + size - posMinor : posMinor - cellMinor + 1;
+                        final long needed = 2L * major * minorSteps - v0 + 2L * minor - 2L * major + 1;
+                        steps = Math.min(steps, Math.max(1, -Math.floorDiv(-needed, 2L * minor)));
+                    }
+
+                    if (!continuesly) {
+                        final int remaining = Math.abs((xMajor ? x1 : y1) - posMajor);
+                        if (remaining < steps)
+                            return null;
+                    }
+
+                    final long minorTaken = Math.floorDiv(v0 + 2L * steps * minor - 2L * minor + 2L * major - 1, 2L * major);
+                    final long majorErr = (xMajor ? err : -err) - steps * minor + minorTaken * major;
+
+                    if (xMajor) {
+                        x0 += stepMajor * steps;
+                        y0 += stepMinor * minorTaken;
+                        err = (int) majorErr;
+                    } else {
+                        y0 += stepMajor * steps;
+                        x0 += stepMinor * minorTaken;
+                        err = (int) -majorErr;
+                    }
+                    continue;
+                }
+            }
+
             final int e2 = 2 * err;
             if (e2 > -dy) {
                 err -= dy;
@@ -450,10 +685,15 @@ public class BaseLogic {
      * @return True if the specified {@code Entity} is intersecting with the given line.
      */
     public static boolean lineRectangle(final float x1, final float y1, final float x2, final float y2, final Rectangle rec) {
-        return lineIntersect(x1, y1, x2, y2, rec.x, rec.y, rec.x + rec.width, rec.y)
-            || lineIntersect(x1, y1, x2, y2, rec.x, rec.y, rec.x, rec.y + rec.height)
-            || lineIntersect(x1, y1, x2, y2, rec.x + rec.width, rec.y, rec.x + rec.width, rec.y + rec.height)
-            || lineIntersect(x1, y1, x2, y2, rec.x, rec.y + rec.height, rec.x + rec.width, rec.y + rec.height);
+        return lineRectangle(x1, y1, x2, y2, rec.x, rec.y, rec.width, rec.height);
+    }
+
+    public static boolean lineRectangle(final float x1, final float y1, final float x2, final float y2,
+                                        final float x, final float y, final float width, final float height) {
+        return lineIntersect(x1, y1, x2, y2, x, y, x + width, y)
+            || lineIntersect(x1, y1, x2, y2, x, y, x, y + height)
+            || lineIntersect(x1, y1, x2, y2, x + width, y, x + width, y + height)
+            || lineIntersect(x1, y1, x2, y2, x, y + height, x + width, y + height);
     }
 
     public static Vector2 findEdgePoint(final float obsX, final float obsY, final float tarX, final float tarY, final Level level) {
@@ -524,13 +764,23 @@ public class BaseLogic {
     }
 
     public static Vector2 normalize(final float x1, final float y1, final float x2, final float y2) {
+        return normalize(x1, y1, x2, y2, new Vector2());
+    }
+
+    /**
+     * Stores the unit vector pointing from the second point to the first in the given vector, or zero if the points are
+     * equal.
+     *
+     * @return The given vector.
+     */
+    public static Vector2 normalize(final float x1, final float y1, final float x2, final float y2, final Vector2 dest) {
         float dx = x1 - x2;
         float dy = y1 - y2;
         final double length = Math.sqrt(dx * dx + dy * dy);
         dx /= length;
         dy /= length;
 
-        return new Vector2(Float.isNaN(dx) ? 0 : dx, Float.isNaN(dy) ? 0 : dy);
+        return dest.set(Float.isNaN(dx) ? 0 : dx, Float.isNaN(dy) ? 0 : dy);
     }
 
     public static Vector2 normalize(final Vector2 v1, final Vector2 v2) {
@@ -594,9 +844,10 @@ public class BaseLogic {
     }
 
     public static Direction getDirection(final Vector2 normalizedPoint) {
-        final double x = normalizedPoint.x;
-        final double y = normalizedPoint.y;
+        return getDirection(normalizedPoint.x, normalizedPoint.y);
+    }
 
+    private static Direction getDirection(final double x, final double y) {
         final double fThreshold = Math.cos(Math.PI / 8);
 
         if (x > fThreshold)
@@ -623,35 +874,16 @@ public class BaseLogic {
         if (currX == prevX && currY == prevY)
             return null;
 
-        final Vector2 normalized = normalize(prevX, prevY, currX, currY);
-        return getDirection(normalized);
+        float dx = prevX - currX;
+        float dy = prevY - currY;
+        final double length = Math.sqrt(dx * dx + dy * dy);
+        dx /= length;
+        dy /= length;
+
+        return getDirection(Float.isNaN(dx) ? 0 : dx, Float.isNaN(dy) ? 0 : dy);
     }
 
     public static Direction getDirection(final MobileEntity mobile) {
         return getDirection(mobile.x(), mobile.y(), mobile.prevX(), mobile.prevY());
     }
-
-    private static void addVectors2D(final Vector2 v1, final Vector2 v2) {
-        v1.x += v2.x;
-        v1.y += v2.y;
-    }
-
-    private static void subVectors2D(final Vector2 v1, final Vector2 v2) {
-        v1.x -= v2.x;
-        v1.y -= v2.y;
-    }
-
-    private static void rotateVector2DClockwise(final Vector2 v, final float ang) {
-        final float cosa = (float) Math.cos(ang);
-        float sina = (float) Math.sin(ang);
-        final float t = v.x;
-
-        v.x = t * cosa + v.y * sina;
-        v.y = -t * sina + v.y * cosa;
-    }
-
-    private static class RotRect {
-        Vector2 C, S;
-        float ang;
-    }
 }
@@ -1,14 +1,18 @@
 package pojahn.game.core;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
-import com.badlogic.gdx.math.Rectangle;
+import pojahn.game.essentials.FrameProfiler;
+import pojahn.game.essentials.FrameProfiler.Counter;
+import pojahn.game.essentials.FrameProfiler.Phase;
 import pojahn.game.essentials.GameState;
 import pojahn.game.essentials.HUDMessage;
 import pojahn.game.essentials.Image2D;
@@ -23,9 +27,12 @@ import pojahn.game.events.Event;
 import pojahn.lang.Obj;
 import pojahn.lang.OtherMath;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -43,7 +50,9 @@ import java.util.concurrent.Executors;
 public class Engine {
 
     public float delta = 1.0f / 60.0f;
-    public boolean renderText;
+    public int maxFramesPerRender, profilerKey;
+    public File profilerExportDir;
+    public boolean renderText, interpolate, sortDraws;
     public BitmapFont timeFont;
     public Color timeColor;
     public HUDMessage helpText, winText, deathText, deathCheckpointText, pauseText;
@@ -52,17 +61,23 @@ public class Engine {
     private final RecordingDevice device;
     private final Serializable meta;
     private final Executor eventExecutor;
+    private final FrameProfiler profiler;
     private String playerName;
-    private SpriteBatch batch;
+    private CountingBatch batch;
+    private Entity[] drawList, drawScratch;
+    private long[] drawKeys;
     private List<Replay> recordings;
     private OrthographicCamera gameCamera, hudCamera;
     private Map<GameState, Event> stateEvents;
+    private Map<PlayableEntity, Keystrokes> pressedKeys;
     GameState state;
     Exception exception;
 
-    private boolean replaying, flipY, showHelpText;
+    private Dimension headlessScreenSize;
+    private boolean replaying, flipY, showHelpText, headless;
     private int deathCounter;
-    private float rotation, musicVolume, prevTx, prevTy, time;
+    private float rotation, musicVolume, prevTx, prevTy, time, accumulator;
+    private float viewX0, viewY0, viewX1, viewY1;
     private long frameCounter;
 
     public Engine(final Level level) {
@@ -86,7 +101,14 @@ public class Engine {
 
         eventExecutor = Executors.newSingleThreadExecutor();
         stateEvents = new HashMap<>();
+        pressedKeys = new HashMap<>();
+        profiler = new FrameProfiler();
+        profilerKey = Keys.F3;
+        profilerExportDir = new File("profiling");
         renderText = true;
+        interpolate = true;
+        sortDraws = true;
+        maxFramesPerRender = 5;
         timeColor = Color.WHITE;
         flipY = true;
     }
@@ -121,6 +143,10 @@ public class Engine {
         return frameCounter;
     }
 
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
     public void setPlayerName(final String playerName) {
         this.playerName = playerName;
     }
@@ -149,7 +175,8 @@ public class Engine {
 
     public void flipY() {
         flipY = !flipY;
-        gameCamera.setToOrtho(flipY);
+        final Dimension screenSize = getScreenSize();
+        gameCamera.setToOrtho(flipY, screenSize.width, screenSize.height);
     }
 
     public boolean flippedY() {
@@ -176,7 +203,14 @@ public class Engine {
         return prevTy;
     }
 
+    public boolean isHeadless() {
+        return headless;
+    }
+
     public Dimension getScreenSize() {
+        if (headless)
+            return headlessScreenSize;
+
         return new Dimension(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
     }
 
@@ -197,8 +231,8 @@ public class Engine {
     }
 
     public boolean onScreen(final Entity entity) {
-        final Rectangle bbox = BaseLogic.getBoundingBox(entity.bounds);
-        return gameCamera.frustum.boundsInFrustum(bbox.x, bbox.y, 0, bbox.width / 2, bbox.height / 2, 0);
+        updateViewBox();
+        return inView(entity, 0);
     }
 
     public void retry() {
@@ -239,10 +273,24 @@ public class Engine {
         stateEvents.put(gameState, event);
     }
 
+    /**
+     * Prepares this instance for simulation only. No {@code SpriteBatch} is created and the screen size is taken from
+     * the given dimension rather than from {@code Gdx.graphics}.
+     *
+     * @param screenSize The screen size the cameras and the HUD messages are calculated from.
+     */
+    void setupHeadless(final Dimension screenSize) throws Exception {
+        headless = true;
+        headlessScreenSize = Objects.requireNonNull(screenSize);
+        setup();
+    }
+
     void setup() throws Exception {
         setGameState(GameState.LOADING);
-        batch = new SpriteBatch(1000, new DefaultShader().get());
-        ShaderProgram.pedantic = false;
+        if (!headless) {
+            batch = new CountingBatch(1000, new DefaultShader().get());
+            ShaderProgram.pedantic = false;
+        }
         initCameras();
         level.init(meta);
         level.build();
@@ -259,7 +307,7 @@ public class Engine {
         setGameState(GameState.ACTIVE);
     }
 
-    private void restart(boolean fromCp) {
+    void restart(boolean fromCp) {
         final boolean lost = lost();
         final boolean completed = completed();
         setGameState(GameState.LOADING);
@@ -271,6 +319,8 @@ public class Engine {
         fromCp = fromCp && level.cpPresent() && !completed;
         time = !fromCp ? 0 : time;
         frameCounter = 0;
+        accumulator = 0;
+        pressedKeys.clear();
 
         if (completed || lost && !fromCp) {
             if (isReplaying())
@@ -323,11 +373,48 @@ public class Engine {
             }
         }
 
+        if (Gdx.input.isKeyJustPressed(profilerKey)) {
+            profiler.showOverlay = !profiler.showOverlay;
+            profiler.enabled |= profiler.showOverlay;
+        }
+
         if (paused()) {
+            accumulator = 0;
             renderPause();
         } else {
-            progress();
-            paint();
+            if (!isReplaying())
+                latchPressedKeys();
+
+            accumulator += Math.min(Gdx.graphics.getRawDeltaTime(), delta * maxFramesPerRender);
+            for (int frames = 0; accumulator >= delta && frames < maxFramesPerRender; frames++) {
+                progress();
+                accumulator -= delta;
+            }
+
+            final long start = profiler.start();
+            final long allocated = profiler.startAllocation();
+            paint(interpolate ? Math.min(accumulator / delta, 1.0f) : 1.0f);
+            profiler.stopAllocation(Counter.PAINT_BYTES, allocated);
+            profiler.stop(Phase.PAINT, start);
+            profiler.commit();
+        }
+    }
+
+    /**
+     * Returns the keys the given main character has down this frame. Keys that only register on the frame they were
+     * pressed are handed out once, even if several frames are simulated during one render. Presses that the next frame
+     * doesn't poll, such as those of a dead character or made while the game is not active, are dropped with it.
+     */
+    Keystrokes pollInput(final PlayableEntity play) {
+        final Keystrokes held = Keystrokes.held(play.getController());
+        final Keystrokes pressed = pressedKeys.remove(play);
+
+        return pressed == null ? held : Keystrokes.withPresses(held, pressed);
+    }
+
+    private void latchPressedKeys() {
+        for (final PlayableEntity play : level.getMainCharacters()) {
+            pressedKeys.merge(play, Keystrokes.from(play.getController()), Keystrokes::merge);
         }
     }
 
@@ -347,14 +434,20 @@ public class Engine {
     }
 
     void destroy() {
-        if (batch != null)
-            batch.dispose();
-        if (level != null)
-            level.dispose();
-        batch = null;
+        try {
+            if (profiler.size() > 0)
+                exportProfile();
+        } finally {
+            profiler.dispose();
+            if (batch != null)
+                batch.dispose();
+            if (level != null)
+                level.dispose();
+            batch = null;
+        }
     }
 
-    private void progress() {
+    void progress() {
         if (active())
             time += delta;
 
@@ -362,35 +455,178 @@ public class Engine {
         prevTx = gameCamera.position.x;
         prevTy = gameCamera.position.y;
 
+        final long allocated = profiler.startAllocation();
         level.gameLoop();
+        profiler.stopAllocation(Counter.LOOP_BYTES, allocated);
+        pressedKeys.clear();
         statusControl();
     }
 
-    private void paint() {
+    /**
+     * @param alpha How far the rendering is between the previous and the current frame. Mobile entities and the camera
+     *              are drawn at the interpolated position when this is less than 1.
+     */
+    private void paint(final float alpha) {
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+        final float realTx = tx();
+        final float realTy = ty();
+        final boolean lerp = alpha < 1.0f;
+        if (lerp && frameCounter > 1)
+            translate(prevTx + (realTx - prevTx) * alpha, prevTy + (realTy - prevTy) * alpha);
+
         updateGameCamera();
+        updateViewBox();
         gameCamera();
 
         batch.begin();
+        batch.flushes = 0;
+
+        int drawn = 0, culled = 0;
+        final EntityStore gameObjects = level.gameObjects;
+        if (drawList == null || drawList.length < gameObjects.size())
+            growDrawList(gameObjects.size());
+
+        for (int i = 0; i < gameObjects.size(); i++) {
+            final Entity entity = gameObjects.get(i);
+            if (entity == null || !entity.isVisible() || entity.tint.a <= 0.0f)
+                continue;
+
+            if (entity.isCullable()) {
+                final float spread = lerp && entity instanceof MobileEntity ? ((MobileEntity) entity).lerpSpread() : 0;
+                if (!inView(entity, spread)) {
+                    entity.nextImage();
+                    culled++;
+                    continue;
+                }
+            }
+            drawList[drawn++] = entity;
+        }
+
+        if (sortDraws)
+            sortByTexture(drawn);
+
+        for (int i = 0; i < drawn; i++) {
+            final Entity entity = drawList[i];
+            drawList[i] = null;
 
-        level.gameObjects.stream()
-            .filter(entity -> entity.isVisible() && entity.tint.a > 0.0f)
-            .forEach(entity -> {
-                final Color color = batch.getColor();
-                batch.setColor(entity.tint);
+            final Color color = batch.getColor();
+            batch.setColor(entity.tint);
 
+            if (lerp && entity instanceof MobileEntity)
+                ((MobileEntity) entity).interpolatedRender(batch, alpha);
+            else
                 entity.render(batch);
 
-                batch.setColor(color);
-            });
+            batch.setColor(color);
+        }
+        profiler.count(Counter.DRAWN, drawn);
+        profiler.count(Counter.CULLED, culled);
 
         hudCamera();
         renderStatusBar();
         renderStatusText();
+        if (profiler.showOverlay && timeFont != null)
+            profiler.render(batch, timeFont);
 
         batch.end();
+        profiler.count(Counter.FLUSHES, batch.flushes);
+        profiler.count(Counter.DRAW_CALLS, batch.renderCalls);
+
+        translate(realTx, realTy);
+    }
+
+    /**
+     * Groups the draws of each run of entities that share z-index and are drawn by the default render by the texture
+     * they bind, so that the batch does not flush between them. Entities with a custom render keep their place, as do
+     * entities drawing the same texture relative to each other.
+     */
+    private void sortByTexture(final int drawn) {
+        int start = 0;
+        while (start < drawn) {
+            final Entity first = drawList[start];
+            int end = start + 1;
+
+            if (first.hasBasicRender()) {
+                while (end < drawn && drawList[end].hasBasicRender() && drawList[end].getZIndex() == first.getZIndex())
+                    end++;
+            }
+
+            if (end - start > 1) {
+                for (int i = start; i < end; i++) {
+                    final Texture texture = drawList[i].currentTexture();
+                    final long id = texture == null ? 0 : texture.getTextureObjectHandle();
+                    drawKeys[i] = id << 32 | (i - start);
+                    drawScratch[i] = drawList[i];
+                }
+                Arrays.sort(drawKeys, start, end);
+
+                for (int i = start; i < end; i++) {
+                    drawList[i] = drawScratch[start + (int) drawKeys[i]];
+                    drawScratch[start + (int) drawKeys[i]] = null;
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void growDrawList(final int size) {
+        final int length = Math.max(64, Integer.highestOneBit(size) * 2);
+        drawList = new Entity[length];
+        drawScratch = new Entity[length];
+        drawKeys = new long[length];
+    }
+
+    /**
+     * Computes the axis aligned box around the area the game camera sees, with its zoom and rotation.
+     */
+    private void updateViewBox() {
+        final float halfWidth = gameCamera.viewportWidth * gameCamera.zoom / 2;
+        final float halfHeight = gameCamera.viewportHeight * gameCamera.zoom / 2;
+        final float upX = Math.abs(gameCamera.up.x);
+        final float upY = Math.abs(gameCamera.up.y);
+        final float extentX = upY * halfWidth + upX * halfHeight;
+        final float extentY = upX * halfWidth + upY * halfHeight;
+
+        viewX0 = gameCamera.position.x - extentX;
+        viewX1 = gameCamera.position.x + extentX;
+        viewY0 = gameCamera.position.y - extentY;
+        viewY1 = gameCamera.position.y + extentY;
+    }
+
+    /**
+     * Tests the area the image of the entity is drawn on, as laid out by {@code Entity.basicRender}, against the view
+     * box. A rotated image is treated as the circle around it.
+     *
+     * @param spread Extra margin on every side.
+     */
+    private boolean inView(final Entity entity, final float spread) {
+        final float width = entity.bounds.size.width;
+        final float height = entity.bounds.size.height;
+        final float centerX = entity.bounds.pos.x + width / 2;
+        final float centerY = entity.bounds.pos.y + height / 2;
+
+        final float left = entity.scaleX * (entity.offsetX - width / 2);
+        final float right = entity.scaleX * (entity.offsetX + width / 2);
+        final float top = entity.scaleY * (entity.offsetY - height / 2);
+        final float bottom = entity.scaleY * (entity.offsetY + height / 2);
+
+        float x0 = Math.min(left, right), x1 = Math.max(left, right);
+        float y0 = Math.min(top, bottom), y1 = Math.max(top, bottom);
+
+        if (entity.bounds.rotation != 0) {
+            final float reachX = Math.max(-x0, x1);
+            final float reachY = Math.max(-y0, y1);
+            final float radius = (float) Math.sqrt(reachX * reachX + reachY * reachY);
+            x0 = y0 = -radius;
+            x1 = y1 = radius;
+        }
+
+        return centerX + x1 + spread >= viewX0 &&
+            centerX + x0 - spread <= viewX1 &&
+            centerY + y1 + spread >= viewY0 &&
+            centerY + y0 - spread <= viewY1;
     }
 
     void setGameState(final GameState state) {
@@ -429,11 +665,13 @@ public class Engine {
     }
 
     private void initCameras() {
+        final Dimension screenSize = getScreenSize();
+
         gameCamera = new OrthographicCamera();
-        gameCamera.setToOrtho(flipY);
+        gameCamera.setToOrtho(flipY, screenSize.width, screenSize.height);
 
         hudCamera = new OrthographicCamera();
-        hudCamera.setToOrtho(true);
+        hudCamera.setToOrtho(true, screenSize.width, screenSize.height);
     }
 
     private void statusControl() {
@@ -475,6 +713,16 @@ public class Engine {
         return device;
     }
 
+    private void exportProfile() {
+        try {
+            profilerExportDir.mkdirs();
+            profiler.exportFrames(new File(profilerExportDir, level.getLevelName() + " frames.csv"));
+            profiler.exportEntities(new File(profilerExportDir, level.getLevelName() + " entities.csv"));
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to export the frame profile.", e);
+        }
+    }
+
     private void finalizeRecording() {
         final Replay recording = new Replay();
         recording.date = ZonedDateTime.now();
@@ -537,4 +785,22 @@ public class Engine {
                 .reduce(Keystrokes::merge)
                 .orElse(Keystrokes.AFK);
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts every flush, including the ones with nothing to draw. The draw calls are counted by {@code renderCalls}.
+     */
+    private static class CountingBatch extends SpriteBatch {
+
+        int flushes;
+
+        CountingBatch(final int size, final ShaderProgram shader) {
+            super(size, shader);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+            super.flush();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package pojahn.game.core;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import pojahn.game.essentials.Animation;
@@ -20,7 +22,9 @@ import java.util.List;
 import static pojahn.game.core.BaseLogic.circleRectangleCollide;
 import static pojahn.game.core.BaseLogic.circleVsCircle;
 import static pojahn.game.core.BaseLogic.pixelPerfect;
+import static pojahn.game.core.BaseLogic.pixelPerfectRotation;
 import static pojahn.game.core.BaseLogic.rectanglesCollide;
+import static pojahn.game.core.BaseLogic.rotatedRectangleCircleCollide;
 import static pojahn.game.core.BaseLogic.rotatedRectanglesCollide;
 
 public class Entity {
@@ -36,6 +40,9 @@ public class Entity {
     Level level;
     Engine engine;
     boolean present;
+    int storeIndex = -1;
+    long order;
+    int gridX0 = -1, gridY0, gridX1, gridY1, gridMark;
 
     private String identifier;
     private List<Event> events, deleteEvents;
@@ -43,7 +50,7 @@ public class Entity {
     private Entity originator;
     private Hitbox hitbox;
     private ActionEvent actionEvent;
-    private boolean quickCollision, visible, active;
+    private boolean quickCollision, visible, active, cullable, cullableSet;
     private int zIndex;
 
     public Entity() {
@@ -140,9 +147,11 @@ public class Entity {
     }
 
     public final void zIndex(final int zIndex) {
-        this.zIndex = zIndex;
-        if (level != null)
-            level.sort = true;
+        if (this.zIndex != zIndex) {
+            this.zIndex = zIndex;
+            if (level != null)
+                level.zIndexChanged(this);
+        }
     }
 
     public int getZIndex() {
@@ -161,6 +170,43 @@ public class Entity {
         this.visible = visible;
     }
 
+    /**
+     * Whether the engine may skip rendering this entity when its image is outside the view. A culled entity still
+     * calls {@link #nextImage()} so its animation keeps the same pace.
+     * <p>
+     * Unless set, only entities that say they render with the default {@link #render(SpriteBatch)}, through
+     * {@link #hasBasicRender()}, are cullable, since another render may draw outside the bounds or change state.
+     */
+    public boolean isCullable() {
+        return cullableSet ? cullable : hasBasicRender();
+    }
+
+    public void setCullable(final boolean cullable) {
+        this.cullable = cullable;
+        cullableSet = true;
+    }
+
+    /**
+     * @return True if this entity is drawn by the default {@link #render(SpriteBatch)}, which only draws the current
+     * image within the bounds. The engine culls such entities outside the view and batches their draws by texture, so
+     * a subclass that overrides render must override this to return false.
+     */
+    protected boolean hasBasicRender() {
+        return true;
+    }
+
+    /**
+     * @return The texture the default render binds for the current image, without advancing the animation.
+     */
+    Texture currentTexture() {
+        final Image2D current = visible && image != null ? image.getCurrentObject() : null;
+        if (current == null)
+            return null;
+
+        final TextureRegion region = current.getRegion();
+        return region != null && fitsRegion(region) ? region.getTexture() : current;
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -178,11 +224,11 @@ public class Entity {
     }
 
     public boolean collidesWith(final Rectangle rectangle) {
-        return BaseLogic.rectanglesCollide(bounds.toRectangle(), rectangle);
+        return BaseLogic.rectanglesCollide(x(), y(), width(), height(), rectangle.x, rectangle.y, rectangle.width, rectangle.height);
     }
 
     public boolean collidesWith(final float x, final float y, final float width, final float height) {
-        return BaseLogic.rectanglesCollide(bounds.toRectangle(), x, y, width, height);
+        return BaseLogic.rectanglesCollide(x(), y(), width(), height(), x, y, width, height);
     }
 
     public boolean collidesWith(final Entity entity) {
@@ -192,26 +238,32 @@ public class Entity {
         if (hitbox == Hitbox.NONE || entity.hitbox == Hitbox.NONE) {
             return false;
         } else if (hitbox == Hitbox.RECTANGLE && entity.hitbox == Hitbox.RECTANGLE) {
-            return (rotated1 || rotated2) ? rotatedRectanglesCollide(bounds, entity.bounds) : rectanglesCollide(bounds.toRectangle(), entity.bounds.toRectangle());
+            return (rotated1 || rotated2) ? rotatedRectanglesCollide(bounds, entity.bounds) : rectanglesCollide(x(), y(), width(), height(), entity.x(), entity.y(), entity.width(), entity.height());
         } else if ((hitbox == Hitbox.RECTANGLE && entity.hitbox == Hitbox.CIRCLE) || (hitbox == Hitbox.CIRCLE && entity.hitbox == Hitbox.RECTANGLE)) {
             final Entity rectangle = hitbox == Hitbox.RECTANGLE ? this : entity;
             final Entity circle = hitbox == Hitbox.CIRCLE ? this : entity;
 
-            if (rectangle.getRotation() != 0)
-                throw new RuntimeException("No collision method for rotated rectangle vs circle.");
+            final float radius = circle.bounds.radius();
+
+            if (rectangle.bounds.rotation != 0 && !rectangle.quickCollision)
+                return rotatedRectangleCircleCollide(rectangle.bounds, circle.centerX(), circle.centerY(), radius);
 
-            return circleRectangleCollide(circle.bounds.toCircle(), rectangle.bounds.toRectangle());
+            return circleRectangleCollide(circle.centerX(), circle.centerY(), radius, rectangle.x(), rectangle.y(), rectangle.width(), rectangle.height());
         } else if (hitbox == Hitbox.CIRCLE && entity.hitbox == Hitbox.CIRCLE) {
-            return circleVsCircle(bounds.toCircle(), entity.bounds.toCircle());
+            final float radius1 = bounds.radius();
+            final float radius2 = entity.bounds.radius();
+
+            return circleVsCircle(centerX(), centerY(), radius1, entity.centerX(), entity.centerY(), radius2);
         } else if (hitbox == Hitbox.PIXEL || entity.hitbox == Hitbox.PIXEL) {
-//            if (rotated1 || rotated2)
-//                return rectanglesCollide(getBoundingBox(bounds), getBoundingBox(entity.bounds)) &&
-//                        pixelPerfectRotation(buildMatrix(this), getImage().getCurrentObject(), buildMatrix(entity), entity.getImage().getCurrentObject());
+            if (rotated1 || rotated2)
+                return pixelPerfectRotation(
+                        bounds, getImage().getCurrentObject(), flipX, flipY,
+                        entity.bounds, entity.getImage().getCurrentObject(), entity.flipX, entity.flipY);
 
-            return rectanglesCollide(bounds.toRectangle(), entity.bounds.toRectangle()) &&
+            return rectanglesCollide(x(), y(), width(), height(), entity.x(), entity.y(), entity.width(), entity.height()) &&
                     pixelPerfect(
-                            bounds.toRectangle(), getImage().getCurrentObject(), flipX, flipY,
-                            entity.bounds.toRectangle(), entity.getImage().getCurrentObject(), entity.flipX, entity.flipY);
+                            x(), y(), getImage().getCurrentObject(), flipX, flipY,
+                            entity.x(), entity.y(), entity.getImage().getCurrentObject(), entity.flipX, entity.flipY);
         }
 
         throw new IllegalStateException("No proper collision handling methods found.");
@@ -221,10 +273,18 @@ public class Entity {
         return bounds.center();
     }
 
+    public Vector2 getCenterCord(final Vector2 dest) {
+        return bounds.center(dest);
+    }
+
     public Vector2 getPos() {
         return bounds.pos.cpy();
     }
 
+    public Vector2 getPos(final Vector2 dest) {
+        return dest.set(bounds.pos);
+    }
+
     public float getRotation() {
         return bounds.rotation;
     }
@@ -293,6 +353,10 @@ public class Entity {
         return epsilon >= dist(entity);
     }
 
+    public boolean isQuickCollision() {
+        return quickCollision;
+    }
+
     public void setQuickCollision(final boolean quickCollision) {
         this.quickCollision = quickCollision;
     }
@@ -328,7 +392,7 @@ public class Entity {
     }
 
     public boolean canSee(final Entity target) {
-        return target != null && !BaseLogic.solidSpace(centerX(), centerY(), target.centerX(), target.centerY(), getLevel());
+        return target != null && getLevel().lineOfSight((int) centerX(), (int) centerY(), (int) target.centerX(), (int) target.centerY());
     }
 
     public Vector2 getFrontPosition() {
@@ -389,6 +453,8 @@ public class Entity {
         clone.zIndex = zIndex;
         clone.hitbox = hitbox;
         clone.quickCollision = quickCollision;
+        clone.cullable = cullable;
+        clone.cullableSet = cullableSet;
         clone.offsetX = offsetX;
         clone.offsetY = offsetY;
         clone.flipX = flipX;
@@ -404,6 +470,10 @@ public class Entity {
             clone.image = image.getClone();
     }
 
+    private boolean fitsRegion(final TextureRegion region) {
+        return (int) bounds.size.width <= region.getRegionWidth() && (int) bounds.size.height <= region.getRegionHeight();
+    }
+
     protected void basicRender(final SpriteBatch batch, final Image2D image2D) {
         basicRender(batch, image2D, x(), y());
     }
@@ -412,6 +482,30 @@ public class Entity {
         if (image == null)
             return;
 
+        final int srcWidth = (int) bounds.size.width;
+        final int srcHeight = (int) bounds.size.height;
+        final TextureRegion region = image.getRegion();
+
+        if (region != null && fitsRegion(region)) {
+            batch.draw(region.getTexture(),
+                x + offsetX,
+                y + offsetY,
+                (x + bounds.size.width / 2) - (x + offsetX),
+                (y + bounds.size.height / 2) - (y + offsetY),
+                bounds.size.width,
+                bounds.size.height,
+                scaleX,
+                scaleY,
+                bounds.rotation,
+                region.getRegionX(),
+                region.getRegionY(),
+                srcWidth,
+                srcHeight,
+                flipX,
+                !flipY);
+            return;
+        }
+
         batch.draw(image,
                 x + offsetX,
                 y + offsetY,
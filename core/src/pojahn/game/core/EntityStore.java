@@ -0,0 +1,252 @@
+package pojahn.game.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An array backed, ordered collection of entities.
+ * <p>
+ * Every entity remembers its slot, so removing one is O(1): the slot is cleared and left as a tombstone until
+ * {@link #compact()} closes all gaps in one pass, keeping the order of the remaining entities. Since removals never
+ * shift the array, iterating by index while entities are removed is safe; callers must skip the {@code null} slots.
+ * Entities added during such an iteration are appended and are visited by the same iteration.
+ * <p>
+ * The store tracks how many of the leading entities are in order. Entities appended after that prefix are put in
+ * place by {@link #mergeAppended(Comparator)}, which gives the same order as a stable sort of the whole store but only
+ * costs a sort of the appended entities, and no more than one linear merge when they don't belong at the end.
+ * <p>
+ * When the store is ordered by z-index, {@link #findLayer(int)} finds the slots of one z-index. They are kept up to
+ * date by {@link #compact()}, so the level knows where the entities with the default z-index are without a scan.
+ */
+public class EntityStore implements Iterable<Entity> {
+
+    private Entity[] entities, scratch;
+    private int size, tombstones, orderedSize, layerStart, layerEnd;
+
+    public EntityStore() {
+        this(64);
+    }
+
+    public EntityStore(final int capacity) {
+        entities = new Entity[Math.max(capacity, 1)];
+        scratch = new Entity[16];
+    }
+
+    /**
+     * Appends the given entity. An entity that is already stored is not added again.
+     */
+    public void add(final Entity entity) {
+        if (contains(entity))
+            return;
+
+        if (size == entities.length)
+            entities = Arrays.copyOf(entities, size * 2);
+
+        entity.storeIndex = size;
+        entities[size++] = entity;
+    }
+
+    public boolean remove(final Entity entity) {
+        if (!contains(entity))
+            return false;
+
+        entities[entity.storeIndex] = null;
+        entity.storeIndex = -1;
+        tombstones++;
+        return true;
+    }
+
+    public boolean contains(final Entity entity) {
+        final int index = entity.storeIndex;
+        return index >= 0 && index < size && entities[index] == entity;
+    }
+
+    /**
+     * @return True if the given entity is stored and has been put in order by a sort or a merge.
+     */
+    public boolean isOrdered(final Entity entity) {
+        return contains(entity) && entity.storeIndex < orderedSize;
+    }
+
+    /**
+     * @return The entity at the given slot, or {@code null} if the entity that occupied it was removed.
+     */
+    public Entity get(final int index) {
+        return entities[index];
+    }
+
+    /**
+     * @return The amount of slots in use, including tombstones.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int count() {
+        return size - tombstones;
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    /**
+     * Finds the slots of the ordered entities with the given z-index, by a binary search that assumes the store was
+     * last sorted or merged by z-index. The result is available through {@link #layerStart()} and
+     * {@link #layerEnd()} and stays valid until the next sort or merge.
+     */
+    public void findLayer(final int zIndex) {
+        layerStart = firstAbove(zIndex - 1);
+        layerEnd = firstAbove(zIndex);
+    }
+
+    /**
+     * @return The slot of the first entity found by {@link #findLayer(int)}, or the slot it would have had.
+     */
+    public int layerStart() {
+        return layerStart;
+    }
+
+    /**
+     * @return The slot after the last entity found by {@link #findLayer(int)}.
+     */
+    public int layerEnd() {
+        return layerEnd;
+    }
+
+    private int firstAbove(final int zIndex) {
+        int low = 0, high = orderedSize;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (entities[mid].getZIndex() > zIndex)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Moves the remaining entities over the tombstones, preserving their order.
+     */
+    public void compact() {
+        if (tombstones == 0)
+            return;
+
+        int live = 0, ordered = 0, start = -1, end = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == layerStart)
+                start = live;
+            if (i == layerEnd)
+                end = live;
+
+            final Entity entity = entities[i];
+            if (entity != null) {
+                entity.storeIndex = live;
+                entities[live++] = entity;
+
+                if (i < orderedSize)
+                    ordered++;
+            }
+        }
+        Arrays.fill(entities, live, size, null);
+
+        size = live;
+        orderedSize = ordered;
+        layerStart = start < 0 ? ordered : start;
+        layerEnd = end < 0 ? ordered : end;
+        tombstones = 0;
+    }
+
+    /**
+     * Stable sort of the stored entities.
+     */
+    public void sort(final Comparator<? super Entity> comparator) {
+        compact();
+        Arrays.sort(entities, 0, size, comparator);
+
+        for (int i = 0; i < size; i++)
+            entities[i].storeIndex = i;
+
+        orderedSize = size;
+    }
+
+    /**
+     * Puts the entities appended since the last sort or merge in order. The entities that were already in order must
+     * still be, with respect to the given comparator.
+     */
+    public void mergeAppended(final Comparator<? super Entity> comparator) {
+        compact();
+
+        final int appended = size - orderedSize;
+        if (appended == 0)
+            return;
+
+        Arrays.sort(entities, orderedSize, size, comparator);
+
+        int head = orderedSize - 1;
+        if (head >= 0 && comparator.compare(entities[head], entities[orderedSize]) > 0) {
+            if (scratch.length < appended)
+                scratch = new Entity[Math.max(appended, scratch.length * 2)];
+
+            System.arraycopy(entities, orderedSize, scratch, 0, appended);
+
+            int tail = appended - 1;
+            int dest = size - 1;
+            while (tail >= 0) {
+                if (head >= 0 && comparator.compare(entities[head], scratch[tail]) > 0)
+                    entities[dest--] = entities[head--];
+                else
+                    entities[dest--] = scratch[tail--];
+            }
+            Arrays.fill(scratch, 0, appended, null);
+        }
+
+        for (int i = head + 1; i < size; i++)
+            entities[i].storeIndex = i;
+
+        orderedSize = size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            if (entities[i] != null)
+                entities[i].storeIndex = -1;
+        }
+        Arrays.fill(entities, 0, size, null);
+
+        size = tombstones = orderedSize = layerStart = layerEnd = 0;
+    }
+
+    @Override
+    public Iterator<Entity> iterator() {
+        return new Iterator<Entity>() {
+
+            int index = skip(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Entity next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                final Entity entity = entities[index];
+                index = skip(index + 1);
+                return entity;
+            }
+
+            int skip(int from) {
+                while (from < size && entities[from] == null)
+                    from++;
+
+                return from;
+            }
+        };
+    }
+}
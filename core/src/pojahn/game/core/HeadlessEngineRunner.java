@@ -0,0 +1,112 @@
+package pojahn.game.core;
+
+import pojahn.game.essentials.GameState;
+import pojahn.game.essentials.geom.Dimension;
+import pojahn.game.essentials.recording.PlaybackRecord;
+
+import java.util.Objects;
+
+/**
+ * Plays back a recorded session of a level without a window, a {@code SpriteBatch} or any input polling.
+ * Frames are simulated back to back as fast as the CPU allows instead of once per vsync.
+ * <p>
+ * The level still loads its resources through {@code Gdx.files}, so a (headless) libGDX backend must be initialized
+ * before {@link #run()} is called.
+ */
+public class HeadlessEngineRunner {
+
+    public static class Result {
+
+        public final long frames;
+        public final double framesPerSecond;
+        public final GameState state;
+        public final double time;
+
+        Result(final long frames, final double framesPerSecond, final GameState state, final double time) {
+            this.frames = frames;
+            this.framesPerSecond = framesPerSecond;
+            this.state = state;
+            this.time = time;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "frames=" + frames +
+                    ", framesPerSecond=" + framesPerSecond +
+                    ", state=" + state +
+                    ", time=" + time +
+                    '}';
+        }
+    }
+
+    private final Level level;
+    private final Engine engine;
+    private Dimension screenSize;
+    private long maxFrames;
+
+    public HeadlessEngineRunner(final Level level, final PlaybackRecord replayData) {
+        this.level = Objects.requireNonNull(level);
+        engine = new Engine(level, Objects.requireNonNull(replayData, "A headless run requires a record to play back."));
+        screenSize = new Dimension(800, 600);
+        maxFrames = Long.MAX_VALUE;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setScreenSize(final Dimension screenSize) {
+        this.screenSize = Objects.requireNonNull(screenSize);
+    }
+
+    /**
+     * The upper limit of frames to simulate, in case the record never leads to an outcome.
+     */
+    public void setMaxFrames(final long maxFrames) {
+        if (maxFrames <= 0)
+            throw new IllegalArgumentException("The amount of frames must be positive: " + maxFrames);
+
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Simulates the level until the record is completed, lost (without checkpoints left to restart from), runs out of
+     * input or the frame limit is reached.
+     *
+     * @return The outcome of the run.
+     */
+    public Result run() {
+        long frames = 0;
+        final long start;
+
+        try {
+            engine.setupHeadless(screenSize);
+            start = System.nanoTime();
+
+            while (frames < maxFrames) {
+                if (engine.lost() && level.cpPresent() && !engine.getDevice().allDone()) {
+                    engine.restart(true);
+                } else if (engine.lost() || engine.completed() || engine.getDevice().allDone()) {
+                    break;
+                }
+
+                engine.progress();
+                engine.getProfiler().commit();
+                frames++;
+            }
+        } catch (final Exception e) {
+            engine.exception = e;
+            engine.state = GameState.CRASHED;
+            engine.runStateEvent();
+            throw new RuntimeException(e);
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(frames, seconds > 0 ? frames / seconds : 0, engine.getGameState(), engine.getTimeInSeconds());
+    }
+
+    public void dispose() {
+        engine.destroy();
+    }
+}
@@ -0,0 +1,168 @@
+package pojahn.game.core;
+
+import pojahn.game.core.Level.Tile;
+import pojahn.game.core.Level.TileLayer;
+
+import java.util.Arrays;
+
+/**
+ * A coarse grid over the level that buckets the tile layers by the area they cover, so that a terrain query only looks
+ * at the layers around the queried pixels. Each cell keeps its layers in the order they were added to the level, which
+ * is the order they take precedence in.
+ * <p>
+ * Layers are moved between cells by {@link #update(TileLayer)} when their position changes. Parts of a layer outside
+ * the level are kept in the border cells.
+ */
+class LayerGrid {
+
+    private static final int CELL_SHIFT = 7;
+    private static final int NOT_INDEXED = -1;
+
+    private final int cols, rows;
+    private final TileLayer[][] cells;
+    private final int[] counts;
+
+    LayerGrid(final int width, final int height) {
+        cols = Math.max(1, (width + (1 << CELL_SHIFT) - 1) >> CELL_SHIFT);
+        rows = Math.max(1, (height + (1 << CELL_SHIFT) - 1) >> CELL_SHIFT);
+        cells = new TileLayer[cols * rows][];
+        counts = new int[cols * rows];
+    }
+
+    void insert(final TileLayer layer) {
+        if (layer.gridX0 == NOT_INDEXED)
+            place(layer);
+    }
+
+    void remove(final TileLayer layer) {
+        if (layer.gridX0 == NOT_INDEXED)
+            return;
+
+        unplace(layer);
+        layer.gridX0 = NOT_INDEXED;
+    }
+
+    /**
+     * Moves the given layer to the cells it covers now, if they differ from the cells it was bucketed in.
+     */
+    void update(final TileLayer layer) {
+        if (layer.gridX0 == NOT_INDEXED)
+            return;
+
+        if (layer.gridX0 == col(layer.x) && layer.gridY0 == row(layer.y) &&
+            layer.gridX1 == col(layer.x + layer.width - 1) && layer.gridY1 == row(layer.y + layer.height - 1))
+            return;
+
+        unplace(layer);
+        place(layer);
+    }
+
+    void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            for (int j = 0; j < counts[i]; j++)
+                cells[i][j].gridX0 = NOT_INDEXED;
+
+            if (cells[i] != null)
+                Arrays.fill(cells[i], 0, counts[i], null);
+        }
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * @return The tile of the first layer that has one at the given pixel, or {@code null} if they all let it through.
+     */
+    Tile tileAt(final int x, final int y) {
+        final int cell = row(y) * cols + col(x);
+        final TileLayer[] layers = cells[cell];
+
+        for (int i = 0; i < counts[cell]; i++) {
+            final Tile tile = layers[i].tileAt(x, y);
+            if (tile != null)
+                return tile;
+        }
+        return null;
+    }
+
+    /**
+     * @return True if any layer covers some of the pixels in the given half-open rectangle.
+     */
+    boolean overlaps(final int x0, final int y0, final int x1, final int y1) {
+        if (x1 <= x0 || y1 <= y0)
+            return false;
+
+        final int c0 = col(x0), c1 = col(x1 - 1), r0 = row(y0), r1 = row(y1 - 1);
+
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                final int cell = row * cols + col;
+                for (int i = 0; i < counts[cell]; i++) {
+                    if (cells[cell][i].overlaps(x0, y0, x1, y1))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void place(final TileLayer layer) {
+        layer.gridX0 = col(layer.x);
+        layer.gridY0 = row(layer.y);
+        layer.gridX1 = col(layer.x + layer.width - 1);
+        layer.gridY1 = row(layer.y + layer.height - 1);
+
+        for (int row = layer.gridY0; row <= layer.gridY1; row++) {
+            for (int col = layer.gridX0; col <= layer.gridX1; col++)
+                add(row * cols + col, layer);
+        }
+    }
+
+    private void unplace(final TileLayer layer) {
+        for (int row = layer.gridY0; row <= layer.gridY1; row++) {
+            for (int col = layer.gridX0; col <= layer.gridX1; col++)
+                delete(row * cols + col, layer);
+        }
+    }
+
+    /**
+     * Inserts the layer at the position given by the order it was added to the level in.
+     */
+    private void add(final int cell, final TileLayer layer) {
+        TileLayer[] layers = cells[cell];
+        final int count = counts[cell];
+
+        if (layers == null)
+            layers = cells[cell] = new TileLayer[4];
+        else if (count == layers.length)
+            layers = cells[cell] = Arrays.copyOf(layers, count * 2);
+
+        int i = count;
+        while (i > 0 && layers[i - 1].order > layer.order) {
+            layers[i] = layers[i - 1];
+            i--;
+        }
+        layers[i] = layer;
+        counts[cell]++;
+    }
+
+    private void delete(final int cell, final TileLayer layer) {
+        final TileLayer[] layers = cells[cell];
+        final int count = counts[cell];
+
+        for (int i = 0; i < count; i++) {
+            if (layers[i] == layer) {
+                System.arraycopy(layers, i + 1, layers, i, count - i - 1);
+                layers[count - 1] = null;
+                counts[cell]--;
+                return;
+            }
+        }
+    }
+
+    private int col(final int x) {
+        return Math.max(0, Math.min(cols - 1, x >> CELL_SHIFT));
+    }
+
+    private int row(final int y) {
+        return Math.max(0, Math.min(rows - 1, y >> CELL_SHIFT));
+    }
+}
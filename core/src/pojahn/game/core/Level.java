@@ -3,8 +3,11 @@ package pojahn.game.core;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import pojahn.game.essentials.AwaitingObject;
 import pojahn.game.essentials.CheckPointHandler;
+import pojahn.game.essentials.FrameProfiler;
+import pojahn.game.essentials.FrameProfiler.Counter;
+import pojahn.game.essentials.FrameProfiler.Phase;
+import pojahn.game.essentials.FrameWheel;
 import pojahn.game.essentials.Keystrokes;
 import pojahn.game.essentials.Utils;
 import pojahn.game.essentials.Vitality;
@@ -17,16 +20,17 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.partitioningBy;
-
 public abstract class Level {
 
+    private static final Comparator<Entity> Z_ORDER = Comparator.comparingInt(Entity::getZIndex);
+    private static final Tile[] TILES = Tile.values();
+
     public enum Tile {
         SOLID,
         HOLLOW,
@@ -41,61 +45,155 @@ public abstract class Level {
         CUSTOM_7,
         CUSTOM_8,
         CUSTOM_9,
-        CUSTOM_10
-    }
+        CUSTOM_10;
 
-    public static final class TileLayer {
+        private final int bit = 1 << ordinal();
 
-        private int x, y;
-        private final Tile[][] layer;
+        /**
+         * @return The bit that represents this tile in the tile masks returned by {@link Level#tilesIn(int, int, int, int)}.
+         */
+        public int bit() {
+            return bit;
+        }
 
-        public TileLayer(final Tile[][] layer) {
-            this(layer, true);
+        public boolean in(final int tiles) {
+            return (tiles & bit) != 0;
         }
+    }
 
-        private TileLayer(final Tile[][] layer, final boolean copy) {
-            if (copy) {
-                this.layer = new Tile[layer.length][layer[0].length];
+    /**
+     * An overlay of tiles that takes precedence over the terrain of the level. Each kind of tile in the layer is stored
+     * as a row-major bitmask, and pixels that are in none of them let the terrain through.
+     */
+    public static final class TileLayer {
 
-                for (int i = 0; i < layer.length; i++) {
-                    System.arraycopy(layer[i], 0, this.layer[i], 0, layer[0].length);
+        int x, y, gridX0 = -1, gridY0, gridX1, gridY1;
+        long order;
+        final int width, height;
+        private final int wordsPerRow;
+        private final Tile[] tiles;
+        private final long[][] masks;
+        private Level level;
+
+        /**
+         * @param layer The tiles of the layer, indexed {@code [x][y]}. A {@code null} element lets the terrain through.
+         */
+        public TileLayer(final Tile[][] layer) {
+            width = layer.length;
+            height = layer[0].length;
+            wordsPerRow = (width + 63) >>> 6;
+
+            final long[][] byTile = new long[TILES.length][];
+            int kinds = 0;
+
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    final Tile tile = layer[x][y];
+                    if (tile == null)
+                        continue;
+
+                    long[] mask = byTile[tile.ordinal()];
+                    if (mask == null) {
+                        mask = byTile[tile.ordinal()] = new long[wordsPerRow * height];
+                        kinds++;
+                    }
+                    mask[y * wordsPerRow + (x >>> 6)] |= 1L << x;
                 }
-            } else {
-                this.layer = layer;
             }
+
+            tiles = new Tile[kinds];
+            masks = new long[kinds][];
+            for (int i = 0, j = 0; i < byTile.length; i++) {
+                if (byTile[i] != null) {
+                    tiles[j] = TILES[i];
+                    masks[j++] = byTile[i];
+                }
+            }
+        }
+
+        private TileLayer(final TileLayer source) {
+            x = source.x;
+            y = source.y;
+            width = source.width;
+            height = source.height;
+            wordsPerRow = source.wordsPerRow;
+            tiles = source.tiles;
+            masks = source.masks;
         }
 
         public void setPosition(final int x, final int y) {
+            if (x == this.x && y == this.y)
+                return;
+
             this.x = x;
             this.y = y;
+
+            if (level != null)
+                level.tileLayerMoved(this);
         }
 
+        /**
+         * @return A layer at the same position that shares the tiles of this one.
+         */
         public TileLayer copy() {
-            final TileLayer tileLayer = new TileLayer(layer, false);
-            tileLayer.x = x;
-            tileLayer.y = y;
+            return new TileLayer(this);
+        }
+
+        /**
+         * @return The tile at the given level coordinate, or {@code null} if the layer lets the terrain through there.
+         */
+        Tile tileAt(final int x, final int y) {
+            final int relX = x - this.x;
+            final int relY = y - this.y;
+            if (relX < 0 || relY < 0 || relX >= width || relY >= height)
+                return null;
+
+            final int word = relY * wordsPerRow + (relX >>> 6);
+            final long bit = 1L << relX;
+
+            for (int i = 0; i < tiles.length; i++) {
+                if ((masks[i][word] & bit) != 0)
+                    return tiles[i];
+            }
+            return null;
+        }
 
-            return tileLayer;
+        boolean overlaps(final int x0, final int y0, final int x1, final int y1) {
+            return x < x1 && x + width > x0 && y < y1 && y + height > y0;
         }
     }
 
-    private List<AwaitingObject<Entity>> awaitingObjects, deleteObjects;
+    private final FrameWheel<Entity> awaitingObjects, deleteObjects;
+    private final Consumer<Entity> adder, remover;
+    private final LongSupplier orders;
+    private final ScriptScheduler scripts;
+    private final SightCache sightCache;
+    private SpatialGrid grid;
+    private float gridCellSize;
     private List<PlayableEntity> mainCharacters;
     private List<Entity> focusObjects;
     private List<TileLayer> tileLayers;
+    private LayerGrid layerGrid;
+    private long layerOrder, sequence, placeOrder;
     private Set<String> identifiers;
     private CheckPointHandler cph;
     private List<Entity> soundListeners;
 
-    List<Entity> gameObjects;
+    EntityStore gameObjects;
     Engine engine;
     boolean sort;
 
     protected Level() {
-        awaitingObjects = new LinkedList<>();
-        deleteObjects = new LinkedList<>();
+        awaitingObjects = new FrameWheel<>();
+        deleteObjects = new FrameWheel<>();
+        adder = this::placeEntity;
+        remover = this::removeEntity;
+        orders = this::nextOrder;
+        scripts = new ScriptScheduler();
+        sightCache = new SightCache();
+        gridCellSize = 128;
         soundListeners = new ArrayList<>();
-        gameObjects = new LinkedList<>();
+        gameObjects = new EntityStore();
         tileLayers = new ArrayList<>();
         mainCharacters = new ArrayList<>();
         focusObjects = new ArrayList<>();
@@ -138,6 +236,130 @@ public abstract class Level {
         return tileAt((int) cord.x, (int) cord.y);
     }
 
+    /**
+     * Finds the tiles within the given rectangle, as seen by {@link #tileAt(int, int)}.
+     *
+     * @return A mask with the {@link Tile#bit()} of every tile found. Pixels out of bounds count as hollow.
+     */
+    public int tilesIn(final int x, final int y, final int width, final int height) {
+        if (width <= 0 || height <= 0)
+            return 0;
+
+        final int x0 = Math.max(x, 0);
+        final int y0 = Math.max(y, 0);
+        final int x1 = Math.min(x + width, getWidth());
+        final int y1 = Math.min(y + height, getHeight());
+
+        int tiles = x0 != x || y0 != y || x1 != x + width || y1 != y + height ? Tile.HOLLOW.bit : 0;
+        if (x0 >= x1 || y0 >= y1)
+            return tiles;
+
+        if (onLayers(x0, y0, x1, y1)) {
+            for (int ty = y0; ty < y1; ty++) {
+                for (int tx = x0; tx < x1; tx++) {
+                    tiles |= tileAt(tx, ty).bit;
+                }
+            }
+            return tiles;
+        }
+
+        return tiles | tilesInInternal(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Finds the tiles on the outline of the given rectangle: the rows {@code y} and {@code y + height} and the columns
+     * {@code x} and {@code x + width}, covering the same pixels as {@link MobileEntity#getOccupyingCells()}.
+     *
+     * @return A mask with the {@link Tile#bit()} of every tile found.
+     */
+    public int tilesOnOutline(final int x, final int y, final int width, final int height) {
+        return tilesIn(x, y, width, 1) |
+            tilesIn(x, y + height, width, 1) |
+            tilesIn(x, y, 1, height) |
+            tilesIn(x + width, y, 1, height);
+    }
+
+    /**
+     * Moves the outline of the given rectangle, as defined by {@link #tilesOnOutline(int, int, int, int)}, one pixel at
+     * a time along the x axis. The starting position is not checked.
+     *
+     * @param distance The amount of pixels to move, where the sign is the direction.
+     * @return How many pixels, at most {@code |distance|}, the rectangle can move before its outline touches solid
+     * terrain.
+     */
+    public int sweepX(final int x, final int y, final int width, final int height, final int distance) {
+        final int step = distance < 0 ? -1 : 1;
+        final int steps = Math.abs(distance);
+
+        for (int i = 1; i <= steps; i++) {
+            if (Tile.SOLID.in(tilesOnOutline(x + i * step, y, width, height)))
+                return i - 1;
+        }
+        return steps;
+    }
+
+    /**
+     * The same as {@link #sweepX(int, int, int, int, int)}, along the y axis.
+     */
+    public int sweepY(final int x, final int y, final int width, final int height, final int distance) {
+        final int step = distance < 0 ? -1 : 1;
+        final int steps = Math.abs(distance);
+
+        for (int i = 1; i <= steps; i++) {
+            if (Tile.SOLID.in(tilesOnOutline(x, y + i * step, width, height)))
+                return i - 1;
+        }
+        return steps;
+    }
+
+    /**
+     * Walks the given rectangle along the x axis, one column at a time, the way a character runs over the ground. The
+     * walk stops at the first column where the outline, as defined by {@link #tilesOnOutline(int, int, int, int)},
+     * touches solid terrain, or where the outline one pixel further down is free while the outline two pixels down is
+     * not, which is where the ground steps down by a pixel. Unlike the sweeps, the starting column is checked as well.
+     *
+     * @param distance The amount of columns to walk after the starting one, where the sign is the direction.
+     * @return How many columns, counting the starting one and at most {@code |distance| + 1}, the rectangle can walk
+     * before it reaches such a column.
+     */
+    public int walkX(final int x, final int y, final int width, final int height, final int distance) {
+        final int step = distance < 0 ? -1 : 1;
+        final int steps = Math.abs(distance);
+
+        for (int i = 0; i <= steps; i++) {
+            final int column = x + i * step;
+            if (Tile.SOLID.in(tilesOnOutline(column, y, width, height)) ||
+                (!Tile.SOLID.in(tilesOnOutline(column, y + 1, width, height)) &&
+                    Tile.SOLID.in(tilesOnOutline(column, y + 2, width, height))))
+                return i;
+        }
+        return steps + 1;
+    }
+
+    /**
+     * Lets ray casts skip over terrain that can not hold the tile they are looking for. Tile layers are not considered.
+     *
+     * @return The side of the largest aligned square, with its corner at a multiple of the side, that contains the
+     * given pixel and holds none of the given tile, or 0 if there is no such square or it is unknown.
+     */
+    protected int emptyCell(final Tile tile, final int x, final int y) {
+        return 0;
+    }
+
+    /**
+     * Finds the tiles of the terrain within the given rectangle, which is within bounds and not covered by a tile
+     * layer. Subclasses with a compact terrain representation should override this.
+     */
+    protected int tilesInInternal(final int x, final int y, final int width, final int height) {
+        int tiles = 0;
+        for (int ty = y; ty < y + height; ty++) {
+            for (int tx = x; tx < x + width; tx++) {
+                tiles |= tileAtInternal(tx, ty).bit;
+            }
+        }
+        return tiles;
+    }
+
     public Serializable getMeta() {
         return null;
     }
@@ -162,19 +384,69 @@ public abstract class Level {
         return cph;
     }
 
+    /**
+     * Adds a layer that overrides the terrain where it has tiles. Layers added earlier take precedence where they
+     * overlap. Adding a layer that is already in the level does nothing.
+     */
     public void addTileLayer(final TileLayer tileLayer) {
+        if (tileLayer.level == this)
+            return;
+        if (tileLayer.level != null)
+            tileLayer.level.removeTileLayer(tileLayer);
+        if (layerGrid == null)
+            layerGrid = new LayerGrid(getWidth(), getHeight());
+
         tileLayers.add(tileLayer);
+        tileLayer.level = this;
+        tileLayer.order = layerOrder++;
+        layerGrid.insert(tileLayer);
+        terrainChanged();
     }
 
     public void removeTileLayer(final TileLayer tileLayer) {
         for (int i = 0; i < tileLayers.size(); i++) {
             if (tileLayers.get(i) == tileLayer) {
                 tileLayers.remove(i);
+                tileLayer.level = null;
+                layerGrid.remove(tileLayer);
+                terrainChanged();
                 return;
             }
         }
     }
 
+    /**
+     * Checks whether there is no solid tile on the line between the two points. The answers are remembered for the rest
+     * of the frame, so entities that look along the same line in the same frame only walk it once.
+     */
+    public boolean lineOfSight(final int x0, final int y0, final int x1, final int y1) {
+        return sightCache.isClear(x0, y0, x1, y1, this);
+    }
+
+    /**
+     * Must be called by subclasses whenever the terrain returned by {@link #tileAtInternal(int, int)} changes, so that
+     * nothing derived from the old terrain is used.
+     */
+    protected void terrainChanged() {
+        sightCache.invalidate();
+    }
+
+    /**
+     * @return True if any tile layer has been added, meaning {@link #tileAt(int, int)} may return something else than
+     * {@link #tileAtInternal(int, int)}.
+     */
+    protected boolean hasTileLayers() {
+        return !tileLayers.isEmpty();
+    }
+
+    /**
+     * @return True if any tile layer covers some of the pixels in the given rectangle, meaning
+     * {@link #tileAt(int, int)} may return something else than {@link #tileAtInternal(int, int)} there.
+     */
+    protected boolean hasTileLayers(final int x, final int y, final int width, final int height) {
+        return onLayers(x, y, x + width, y + height);
+    }
+
     public boolean outOfBounds(final float targetX, final float targetY) {
         return targetX >= getWidth() ||
             targetY >= getHeight() ||
@@ -183,23 +455,18 @@ public abstract class Level {
     }
 
     public void add(final Entity entity) {
-        awaitingObjects.add(new AwaitingObject<>(0, entity));
+        addAfter(entity, 0);
     }
 
     public void addAfter(final Entity entity, final int framesDelay) {
-        awaitingObjects.add(new AwaitingObject<>(framesDelay, entity));
+        entity.order = ++sequence;
+        awaitingObjects.schedule(entity, framesDelay);
     }
 
-    public void addWhen(final Entity entity, final TaskEvent addEvent) {
-        final Entity wrapper = new Entity();
-        wrapper.addEvent(() -> {
-            if (addEvent.eventHandling()) {
-                wrapper.getLevel().add(entity);
-                wrapper.getLevel().discard(wrapper);
-            }
-        });
-
-        add(wrapper);
+    public Script addWhen(final Entity entity, final TaskEvent addEvent) {
+        return start(new Script()
+            .waitUntil(addEvent)
+            .run(() -> add(entity)));
     }
 
     public void temp(final Entity entity, final int lifeFrames) {
@@ -207,9 +474,9 @@ public abstract class Level {
         discardAfter(entity, lifeFrames);
     }
 
-    public void temp(final Entity entity, final TaskEvent discardCondition) {
+    public Script temp(final Entity entity, final TaskEvent discardCondition) {
         add(entity);
-        discardWhen(entity, discardCondition);
+        return discardWhen(entity, discardCondition);
     }
 
     public Entity add(final Event event) {
@@ -241,12 +508,9 @@ public abstract class Level {
         return wrapper;
     }
 
-    public Entity temp(final Event event, final TaskEvent discardCondition) {
-        final Entity wrapper = Utils.wrap(event);
-        add(wrapper);
-        discardWhen(wrapper, discardCondition);
-
-        return wrapper;
+    public Script temp(final Event event, final TaskEvent discardCondition) {
+        return start(new Script()
+            .repeatUntil(event, discardCondition));
     }
 
     public Entity temp(final Event event, final int lifeFrames, final Event endEvent) {
@@ -258,82 +522,58 @@ public abstract class Level {
         return wrapper;
     }
 
-    public Entity temp(final Event event, final TaskEvent discardCondition, final Event endEvent) {
-        final Entity wrapper = Utils.wrap(event);
-        add(wrapper);
-        discardWhen(wrapper, discardCondition);
-        runOnceWhen(endEvent, discardCondition);
-
-        return wrapper;
+    public Script temp(final Event event, final TaskEvent discardCondition, final Event endEvent) {
+        return start(new Script()
+            .repeatUntil(event, discardCondition)
+            .run(endEvent));
     }
 
-    public Entity runOnceWhen(final Event event, final TaskEvent whenToRun) {
-        final Entity wrapper = new Entity();
-        wrapper.addEvent(() -> {
-            if (whenToRun.eventHandling()) {
-                event.eventHandling();
-                wrapper.getLevel().discard(wrapper);
-            }
-        });
-        add(wrapper);
-
-        return wrapper;
+    public Script runOnceWhen(final Event event, final TaskEvent whenToRun) {
+        return start(new Script()
+            .waitUntil(whenToRun)
+            .run(event));
     }
 
-    public Entity runOnceAfter(final Event event, final int framesDelay) {
-        final int[] counter = {0};
-
-        final Entity wrapper = new Entity();
-        wrapper.addEvent(() -> {
-            if (counter[0]++ == framesDelay) {
-                event.eventHandling();
-                discard(wrapper);
-            }
-        });
-        add(wrapper);
-
-        return wrapper;
+    public Script runOnceAfter(final Event event, final int framesDelay) {
+        return start(new Script()
+            .waitFrames(framesDelay)
+            .run(event));
     }
 
-    public Entity runWhile(final Event event, final TaskEvent condition) {
-        final Entity wrapper = new Entity();
-        wrapper.addEvent(() -> {
-            if (condition.eventHandling())
-                event.eventHandling();
-        });
-
-        add(wrapper);
-        return wrapper;
+    public Script runWhile(final Event event, final TaskEvent condition) {
+        return start(new Script()
+            .every(1, () -> {
+                if (condition.eventHandling())
+                    event.eventHandling();
+            }));
     }
 
-    public Entity interval(final Event event, final int freq) {
-        final Entity wrapped = new Entity();
-        final Int32 counter = new Int32(-1);
-        wrapped.addEvent(() -> {
-            if (++counter.value % freq == 0) {
-                event.eventHandling();
-            }
-        });
-
-        add(wrapped);
-        return wrapped;
+    /**
+     * Runs the given event on the first frame and then every {@code freq}:th frame, the same timing it had when it was
+     * run by a wrapper entity.
+     */
+    public Script interval(final Event event, final int freq) {
+        return start(new Script()
+            .every(freq, event));
     }
 
-    public Entity interval(final Event event, final int freq, final TaskEvent discardCondition) {
-        final Entity wrapped = new Entity();
+    public Script interval(final Event event, final int freq, final TaskEvent discardCondition) {
         final Int32 counter = new Int32();
-        wrapped.addEvent(() -> {
-            if (discardCondition.eventHandling()) {
-                discard(wrapped);
-            } else {
-                if (++counter.value % freq == 0) {
+        return start(new Script()
+            .every(1, () -> {
+                if (++counter.value % freq == 0)
                     event.eventHandling();
-                }
-            }
-        });
+            }, discardCondition));
+    }
 
-        add(wrapped);
-        return wrapped;
+    /**
+     * Starts the given script. It is stepped for the first time the next frame, among the entities with a z-index of 0
+     * where an entity added now would have been updated.
+     */
+    public Script start(final Script script) {
+        script.order = ++sequence;
+        scripts.start(script);
+        return script;
     }
 
     public Entity runOnceDelayed(final Event event, final int delay, final TaskEvent whenToRun) {
@@ -353,19 +593,74 @@ public abstract class Level {
     }
 
     public void discardAfter(final Entity entity, final int framesDelay) {
-        deleteObjects.add(new AwaitingObject<>(framesDelay, entity));
+        deleteObjects.schedule(entity, framesDelay);
     }
 
-    public void discardWhen(final Entity entity, final TaskEvent discardEvent) {
-        final Entity wrapper = new Entity();
-        wrapper.addEvent(() -> {
-            if (discardEvent.eventHandling()) {
-                discard(entity);
-                discard(wrapper);
+    public Script discardWhen(final Entity entity, final TaskEvent discardEvent) {
+        return start(new Script()
+            .waitUntil(discardEvent)
+            .run(() -> discard(entity)));
+    }
+
+    /**
+     * The spatial index of the entities in the level. It is built on the first call and kept up to date from then on,
+     * so levels that never query it don't pay for it.
+     */
+    public SpatialGrid getSpatialGrid() {
+        if (grid == null) {
+            grid = new SpatialGrid(getWidth(), getHeight(), gridCellSize);
+
+            for (int i = 0; i < gameObjects.size(); i++) {
+                final Entity entity = gameObjects.get(i);
+                if (entity != null)
+                    grid.insert(entity);
             }
-        });
+        }
+        return grid;
+    }
 
-        add(wrapper);
+    /**
+     * The width and height of the cells in the spatial index. Takes effect the next time the index is built.
+     */
+    public void setGridCellSize(final float gridCellSize) {
+        if (gridCellSize <= 0)
+            throw new IllegalArgumentException("The cell size must be positive: " + gridCellSize);
+
+        this.gridCellSize = gridCellSize;
+    }
+
+    public List<Entity> queryRect(final float x, final float y, final float width, final float height) {
+        return queryRect(x, y, width, height, Entity.class);
+    }
+
+    public <T extends Entity> List<T> queryRect(final float x, final float y, final float width, final float height, final Class<T> type) {
+        return getSpatialGrid().queryRect(x, y, width, height, type, new ArrayList<>());
+    }
+
+    public List<Entity> queryRadius(final float x, final float y, final float radius) {
+        return queryRadius(x, y, radius, Entity.class);
+    }
+
+    public <T extends Entity> List<T> queryRadius(final float x, final float y, final float radius, final Class<T> type) {
+        return getSpatialGrid().queryRadius(x, y, radius, type, new ArrayList<>());
+    }
+
+    public <T extends Entity> List<T> nearest(final float x, final float y, final int k, final Class<T> type) {
+        return getSpatialGrid().nearest(x, y, k, type, null, new ArrayList<>(k));
+    }
+
+    /**
+     * @return The entity of the given type closest to the watcher, other than the watcher itself.
+     */
+    public <T extends Entity> T findClosest(final Entity watcher, final Class<T> type) {
+        return getSpatialGrid().closest(watcher.x(), watcher.y(), type, target -> target != watcher);
+    }
+
+    /**
+     * @return The entity of the given type closest to the watcher that the watcher can see, other than itself.
+     */
+    public <T extends Entity> T findClosestSeeable(final Entity watcher, final Class<T> type) {
+        return getSpatialGrid().closest(watcher.x(), watcher.y(), type, target -> target != watcher && watcher.canSee(target));
     }
 
     public List<PlayableEntity> getMainCharacters() {
@@ -404,47 +699,115 @@ public abstract class Level {
         focusObjects.remove(entity);
     }
 
+    boolean onLayers(final int x0, final int y0, final int x1, final int y1) {
+        return !tileLayers.isEmpty() && layerGrid.overlaps(x0, y0, x1, y1);
+    }
+
     private Tile onLayer(final int x, final int y) {
-        for (final TileLayer tileLayer : tileLayers) {
-            if (BaseLogic.pointRectangleOverlap(tileLayer.x, tileLayer.y, tileLayer.layer.length - 1, tileLayer.layer[0].length - 1, x, y)) {
-                final int relX = x - tileLayer.x;
-                final int relY = y - tileLayer.y;
+        return tileLayers.isEmpty() ? null : layerGrid.tileAt(x, y);
+    }
 
-                if (tileLayer.layer[relX][relY] != null)
-                    return tileLayer.layer[relX][relY];
-            }
-        }
-        return null;
+    private void tileLayerMoved(final TileLayer tileLayer) {
+        layerGrid.update(tileLayer);
+        terrainChanged();
     }
 
     protected void clean() {
         getCheckpointHandler().clearUsers();
         awaitingObjects.clear();
         deleteObjects.clear();
+        scripts.clear();
+        if (grid != null) {
+            grid.clear();
+            grid = null;
+        }
         gameObjects.forEach(Entity::dispose);
         gameObjects.clear();
         identifiers.clear();
         mainCharacters.clear();
+        tileLayers.forEach(tileLayer -> tileLayer.level = null);
         tileLayers.clear();
+        if (layerGrid != null) {
+            layerGrid.clear();
+            layerGrid = null;
+        }
         focusObjects.clear();
+        sightCache.invalidate();
     }
 
     void gameLoop() {
+        final FrameProfiler profiler = engine.getProfiler();
+        sightCache.invalidate();
+
+        long start = profiler.start();
         place();
+        profiler.stop(Phase.PLACE, start);
 
+        start = profiler.start();
         if (sort) {
-            gameObjects.sort(Comparator.comparingInt(Entity::getZIndex));
+            reorderMovers();
+            gameObjects.sort(Z_ORDER);
             sort = false;
+        } else {
+            gameObjects.mergeAppended(Z_ORDER);
         }
+        gameObjects.findLayer(0);
+        profiler.stop(Phase.SORT, start);
 
+        start = profiler.start();
         focusCamera();
-        updateEntities();
+        profiler.stop(Phase.FOCUS, start);
+
+        start = profiler.start();
+        scripts.wake();
+        profiler.stop(Phase.SCRIPTS, start);
+
+        updateEntities(profiler);
+
+        start = profiler.start();
+        scripts.finish();
+        profiler.stop(Phase.SCRIPTS, start);
+
+        start = profiler.start();
+        setPrevs();
+        profiler.stop(Phase.UPDATE, start);
+
+        start = profiler.start();
         getCheckpointHandler().update();
+        profiler.stop(Phase.CHECKPOINTS, start);
+
+        profiler.count(Counter.SIGHT_HITS, sightCache.hits);
+        profiler.count(Counter.SIGHT_MISSES, sightCache.misses);
+        sightCache.hits = sightCache.misses = 0;
+
+        profiler.tick();
     }
 
-    private void updateEntities() {
-        for (final Entity entity : gameObjects) {
+    /**
+     * Updates the entities in order, stepping the due scripts among the entities with a z-index of 0 by their
+     * {@link Entity#order}. This is where the entities that used to wrap the scripts were updated.
+     */
+    private void updateEntities(final FrameProfiler profiler) {
+        final int layerStart = gameObjects.layerStart(), layerEnd = gameObjects.layerEnd();
+        long start = profiler.start();
+
+        for (int i = 0; i < gameObjects.size(); i++) {
+            final Entity entity = gameObjects.get(i);
+            if (entity == null)
+                continue;
+
+            final long before = i >= layerEnd ? Long.MAX_VALUE : entity.order;
+            if (i >= layerStart && scripts.isDueBefore(before)) {
+                profiler.stop(Phase.UPDATE, start);
+                start = profiler.start();
+                scripts.stepBefore(before);
+                profiler.stop(Phase.SCRIPTS, start);
+                start = profiler.start();
+            }
+
             if (entity.isActive()) {
+                final long entityStart = profiler.start();
+
                 if (entity instanceof PlayableEntity) {
                     playableEntityUpdate((PlayableEntity) entity);
                 } else if (entity instanceof MobileEntity) {
@@ -453,13 +816,25 @@ public abstract class Level {
                     entity.logistics();
                     entity.runEvents();
                 }
+
+                if (grid != null)
+                    grid.update(entity);
+
+                profiler.stop(entity.getClass(), entityStart);
             }
         }
+        profiler.stop(Phase.UPDATE, start);
+    }
+
+    private void setPrevs() {
+        for (int i = 0; i < gameObjects.size(); i++) {
+            final Entity entity = gameObjects.get(i);
+            if (entity instanceof MobileEntity)
+                ((MobileEntity) entity).setPrevs();
 
-        gameObjects.stream()
-            .filter(MobileEntity.class::isInstance)
-            .map(MobileEntity.class::cast)
-            .forEach(MobileEntity::setPrevs);
+            if (entity != null && grid != null)
+                grid.update(entity);
+        }
     }
 
     private void playableEntityUpdate(final PlayableEntity playableEntity) {
@@ -468,7 +843,7 @@ public abstract class Level {
         if (playableEntity.isGhost())
             buttonsDown = playableEntity.nextInput();
         else if (engine.active() && playableEntity.isAlive())
-            buttonsDown = engine.isReplaying() ? engine.getDevice().nextInput(playableEntity.getIdentifier()) : Keystrokes.from(playableEntity.getController());
+            buttonsDown = engine.isReplaying() ? engine.getDevice().nextInput(playableEntity.getIdentifier()) : engine.pollInput(playableEntity);
         else
             buttonsDown = Keystrokes.AFK;
 
@@ -483,18 +858,15 @@ public abstract class Level {
             playableEntity.runEvents();
 
             if (playableEntity.tileEvents.size() > 0)
-                tileIntersection(playableEntity, playableEntity.getOccupyingCells());
+                tileIntersection(playableEntity, playableEntity.getOccupyingTiles());
 
             playableEntity.updateFacing();
         }
     }
 
-    private void tileIntersection(final MobileEntity mobile, final Set<Tile> tiles) {
-        for (final Tile tile : tiles) {
-            if (tile != Tile.HOLLOW) {
-                mobile.runTileEvents(tile);
-            }
-        }
+    private void tileIntersection(final MobileEntity mobile, final int tiles) {
+        for (int rest = tiles & ~Tile.HOLLOW.bit; rest != 0; rest &= rest - 1)
+            mobile.runTileEvents(TILES[Integer.numberOfTrailingZeros(rest)]);
     }
 
     private void mobileEntityUpdate(final MobileEntity mobileEntity) {
@@ -502,33 +874,61 @@ public abstract class Level {
         mobileEntity.runEvents();
 
         if (mobileEntity.tileEvents.size() > 0)
-            tileIntersection(mobileEntity, mobileEntity.getOccupyingCells());
+            tileIntersection(mobileEntity, mobileEntity.getOccupyingTiles());
 
         mobileEntity.updateFacing();
     }
 
+    /**
+     * Adds and removes the entities that are due and activates the scripts started before this frame. The entities
+     * and scripts are given their place in the update order in the order they were scheduled, so a script is stepped
+     * right after the entities with a z-index of 0 that were added before it was started.
+     */
     void place() {
-        final Map<Boolean, List<AwaitingObject<Entity>>> awaitingMap = awaitingObjects.stream().collect(partitioningBy(AwaitingObject::tick));
+        final long placing = sequence;
+        placeOrder = ++sequence;
 
-        awaitingObjects = awaitingMap.get(Boolean.FALSE);
-        awaitingMap.get(Boolean.TRUE)
-            .stream()
-            .map(AwaitingObject::unwrap)
-            .forEach(this::addEntity);
+        awaitingObjects.advance(adder);
+        deleteObjects.advance(remover);
+        gameObjects.compact();
+        scripts.activate(placing + 1, orders);
+    }
 
-        final Map<Boolean, List<AwaitingObject<Entity>>> deleteMap = deleteObjects.stream().collect(partitioningBy(AwaitingObject::tick));
+    private void placeEntity(final Entity entity) {
+        scripts.activate(entity.order, orders);
+        entity.order = nextOrder();
+        addEntity(entity);
+    }
 
-        deleteObjects = deleteMap.get(Boolean.FALSE);
-        deleteMap.get(Boolean.TRUE)
-            .stream()
-            .map(AwaitingObject::unwrap)
-            .forEach(this::removeEntity);
+    private long nextOrder() {
+        return ++sequence;
+    }
+
+    /**
+     * Entities that changed their z-index to 0 since the last sort are ordered before the scripts if they came from
+     * below, and after the scripts placed before this frame if they came from above, as they would have been in a
+     * stable sort of the entities and the wrappers that used to run the scripts.
+     */
+    private void reorderMovers() {
+        final int layerStart = gameObjects.layerStart(), layerEnd = gameObjects.layerEnd();
+
+        for (int i = 0; i < gameObjects.size(); i++) {
+            final Entity entity = gameObjects.get(i);
+            if (entity != null && entity.getZIndex() == 0 && gameObjects.isOrdered(entity)) {
+                if (i < layerStart)
+                    entity.order = Long.MIN_VALUE;
+                else if (i >= layerEnd)
+                    entity.order = placeOrder;
+            }
+        }
     }
 
     private void removeEntity(final Entity entity) {
         gameObjects.remove(entity);
         entity.present = false;
         entity.dispose();
+        if (grid != null)
+            grid.remove(entity);
         if (entity.getIdentifier() != null) {
             identifiers.remove(entity.getIdentifier());
         }
@@ -541,14 +941,24 @@ public abstract class Level {
         }
     }
 
+    /**
+     * Entities that are already in order are sorted again on the next frame, while entities added this frame are
+     * put in place with their final z-index anyway.
+     */
+    void zIndexChanged(final Entity entity) {
+        if (gameObjects.isOrdered(entity))
+            sort = true;
+    }
+
     private void addEntity(final Entity entity) {
         gameObjects.add(entity);
-        sort = true;
 
         entity.level = this;
         entity.engine = engine;
         entity.present = true;
         entity.init();
+        if (grid != null)
+            grid.insert(entity);
 
         if (entity.getIdentifier() != null) {
             if (identifiers.contains(entity.getIdentifier())) {
@@ -567,7 +977,8 @@ public abstract class Level {
 
                 mainCharacters.add(play);
                 cph.addUser(play);
-                engine.getDevice().addEntry(play.getIdentifier());
+                if (!engine.isReplaying())
+                    engine.getDevice().addEntry(play.getIdentifier());
             }
         }
     }
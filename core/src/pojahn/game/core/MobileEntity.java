@@ -1,31 +1,37 @@
 package pojahn.game.core;
 
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import pojahn.game.core.Level.Tile;
 import pojahn.game.essentials.Direction;
+import pojahn.game.essentials.Hitbox;
 import pojahn.game.events.TileEvent;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class MobileEntity extends Entity {
 
     List<TileEvent> tileEvents;
 
-    private float prevX, prevY;
+    private float prevX, prevY, lerpX, lerpY;
     private Direction facing;
     private float moveSpeed;
     private int facings;
-    private boolean smart, frozen, moving;
-    private Set<Entity> obstacles;
+    private boolean smart, frozen, moving, lerpReady;
+    private Entity[] obstacles;
+    private int obstacleCount;
+    private final Vector2 towards;
 
     public MobileEntity() {
+        towards = new Vector2();
         facing = Direction.E;
         tileEvents = new ArrayList<>();
-        obstacles = new HashSet<>();
+        obstacles = new Entity[4];
         moveSpeed = 3;
         facings = 8;
     }
@@ -105,12 +111,11 @@ public class MobileEntity extends Entity {
     }
 
     protected void dumbMoveTowards(final float targetX, final float targetY, final float steps) {
-        final Vector2 next = attemptTowards(targetX, targetY, steps);
-        bounds.pos.set(next);
+        attemptTowards(targetX, targetY, steps, bounds.pos);
     }
 
     protected void smartMoveTowards(final float targetX, final float targetY, final float steps) {
-        final Vector2 next = attemptTowards(targetX, targetY, steps);
+        final Vector2 next = attemptTowards(targetX, targetY, steps, towards);
         smartMove(next.x, next.y);
     }
 
@@ -129,12 +134,22 @@ public class MobileEntity extends Entity {
     }
 
     protected Vector2 attemptTowards(final float targetX, final float targetY, final float steps) {
+        return attemptTowards(targetX, targetY, steps, new Vector2());
+    }
+
+    /**
+     * Stores the position {@code steps} pixels towards the target in the given vector, which may be the position of
+     * this entity.
+     *
+     * @return The given vector.
+     */
+    protected Vector2 attemptTowards(final float targetX, final float targetY, final float steps, final Vector2 dest) {
         final float fX = targetX - x();
         final float fY = targetY - y();
         final float dist = (float) Math.sqrt(fX * fX + fY * fY);
         final float step = steps / dist;
 
-        return new Vector2(bounds.pos.x + fX * step, bounds.pos.y + fY * step);
+        return dest.set(bounds.pos.x + fX * step, bounds.pos.y + fY * step);
     }
 
     public void stepBack() {
@@ -159,11 +174,22 @@ public class MobileEntity extends Entity {
     }
 
     public void addObstacle(final Entity obstacle) {
-        obstacles.add(obstacle);
+        if (indexOfObstacle(obstacle) != -1)
+            return;
+
+        if (obstacleCount == obstacles.length)
+            obstacles = Arrays.copyOf(obstacles, obstacleCount * 2);
+
+        obstacles[obstacleCount++] = obstacle;
     }
 
     public void removeObstacle(final Entity obstacle) {
-        obstacles.remove(obstacle);
+        final int index = indexOfObstacle(obstacle);
+        if (index == -1)
+            return;
+
+        System.arraycopy(obstacles, index + 1, obstacles, index, obstacleCount - index - 1);
+        obstacles[--obstacleCount] = null;
     }
 
     public void setSmart(final boolean smart) {
@@ -276,19 +302,16 @@ public class MobileEntity extends Entity {
         }
     }
 
+    /**
+     * Checks whether this entity would overlap solid terrain or one of its obstacles at the given position. The entity
+     * itself is not moved, and nothing is allocated unless an obstacle needs a rotated, circular or pixel perfect test.
+     */
     public boolean occupiedAt(final float targetX, final float targetY) {
-        final float realX = x();
-        final float realY = y();
-        move(targetX, targetY);
-
-        boolean occupied = getOccupyingCells().contains(Tile.SOLID);
-        if (occupied) {
-            move(realX, realY);
-            return true;
-        }
-        occupied = obstacleCollision();
-        move(realX, realY);
-        return occupied;
+        return solidOutline((int) targetX, (int) targetY) || obstacleCollision(targetX, targetY);
+    }
+
+    private boolean solidOutline(final int x, final int y) {
+        return Tile.SOLID.in(getLevel().tilesOnOutline(x, y, (int) width(), (int) height()));
     }
 
     public boolean outOfBounds() {
@@ -300,26 +323,25 @@ public class MobileEntity extends Entity {
     }
 
     public Set<Tile> getOccupyingCells() {
-        final Level l = getLevel();
-        final Set<Tile> cells = new HashSet<>();
+        final int tiles = getOccupyingTiles();
+        final Set<Tile> cells = EnumSet.noneOf(Tile.class);
 
-        final int x = (int) x();
-        final int y = (int) y();
-        final int w = (int) width();
-        final int h = (int) height();
-
-        for (int xcord = x; xcord < x + w; xcord++) {
-            cells.add(l.tileAt(xcord, y));
-            cells.add(l.tileAt(xcord, y + h));
-        }
-        for (int ycord = y; ycord < y + h; ycord++) {
-            cells.add(l.tileAt(x, ycord));
-            cells.add(l.tileAt(x + w, ycord));
+        for (final Tile tile : Tile.values()) {
+            if (tile.in(tiles))
+                cells.add(tile);
         }
-
         return cells;
     }
 
+    /**
+     * Finds the tiles on the outline of this entity without allocating.
+     *
+     * @return A mask with the {@link Tile#bit()} of every tile found.
+     */
+    public int getOccupyingTiles() {
+        return getLevel().tilesOnOutline((int) x(), (int) y(), (int) width(), (int) height());
+    }
+
     public void adjust(final MobileEntity target, final boolean harsh) {
         final float nextX = target.x() + x() - prevX;
         final float nextY = target.y() + y() - prevY;
@@ -351,35 +373,66 @@ public class MobileEntity extends Entity {
         }
     }
 
+    /**
+     * Checks whether this entity would collide with one of its active obstacles at the given position.
+     * <p>
+     * Unrotated rectangles are tested on the raw coordinates. Other hitboxes are tested by moving this entity to the
+     * given position and back.
+     */
     protected boolean obstacleCollision(final float tempX, final float tempY) {
-        final float realX = x();
-        final float realY = y();
-        move(tempX, tempY);
-        final boolean col = obstacleCollision();
-        move(realX, realY);
-
-        return col;
-    }
+        final float width = width();
+        final float height = height();
+        final boolean simple = getHitbox() == Hitbox.RECTANGLE && (bounds.rotation == 0 || isQuickCollision());
+
+        for (int i = 0; i < obstacleCount; i++) {
+            final Entity obstacle = obstacles[i];
+            if (!obstacle.isActive() || !obstacle.available() || obstacle.getHitbox() == Hitbox.NONE)
+                continue;
+
+            final boolean collides;
+            if (simple && obstacle.getHitbox() == Hitbox.RECTANGLE && (obstacle.bounds.rotation == 0 || obstacle.isQuickCollision())) {
+                collides = BaseLogic.rectanglesCollide(tempX, tempY, width, height, obstacle.x(), obstacle.y(), obstacle.width(), obstacle.height());
+            } else {
+                final float realX = x();
+                final float realY = y();
+                move(tempX, tempY);
+                collides = collidesWith(obstacle);
+                move(realX, realY);
+            }
 
-    protected boolean obstacleCollision() {
-        for (final Entity obstacle : getObstacles())
-            if (collidesWith(obstacle))
+            if (collides)
                 return true;
+        }
 
         return false;
     }
 
+    protected boolean obstacleCollision() {
+        return obstacleCollision(x(), y());
+    }
+
     protected Set<Entity> getObstacles() {
-        return obstacles.stream()
-            .filter(Entity::isActive)
-            .filter(Entity::available)
-            .collect(Collectors.toSet());
+        final Set<Entity> active = new HashSet<>();
+        for (int i = 0; i < obstacleCount; i++) {
+            if (obstacles[i].isActive() && obstacles[i].available())
+                active.add(obstacles[i]);
+        }
+        return active;
+    }
+
+    private int indexOfObstacle(final Entity obstacle) {
+        for (int i = 0; i < obstacleCount; i++) {
+            if (obstacles[i] == obstacle)
+                return i;
+        }
+        return -1;
     }
 
     protected void copyData(final MobileEntity clone) {
         super.copyData(clone);
         clone.moveSpeed = moveSpeed;
-        clone.obstacles = new HashSet<>(obstacles);
+        clone.obstacles = Arrays.copyOf(obstacles, obstacles.length);
+        clone.obstacleCount = obstacleCount;
         clone.smart = smart;
         clone.facings = facings;
     }
@@ -392,7 +445,40 @@ public class MobileEntity extends Entity {
         if (prevX != bounds.pos.x || prevY != bounds.pos.y)
             moving = true;
 
+        lerpX = lerpReady ? prevX : bounds.pos.x;
+        lerpY = lerpReady ? prevY : bounds.pos.y;
+        lerpReady = true;
+
         prevX = bounds.pos.x;
         prevY = bounds.pos.y;
     }
+
+    /**
+     * @return How far the interpolated position can be from the current position, on either axis.
+     */
+    float lerpSpread() {
+        return lerpReady ? Math.max(Math.abs(bounds.pos.x - lerpX), Math.abs(bounds.pos.y - lerpY)) : 0;
+    }
+
+    /**
+     * Renders this entity at the position between the previous and the current frame.
+     *
+     * @param alpha How far into the next frame the rendering is, between 0 and 1.
+     */
+    void interpolatedRender(final SpriteBatch batch, final float alpha) {
+        if (!lerpReady) {
+            render(batch);
+            return;
+        }
+
+        final float realX = bounds.pos.x;
+        final float realY = bounds.pos.y;
+        bounds.pos.x = lerpX + (realX - lerpX) * alpha;
+        bounds.pos.y = lerpY + (realY - lerpY) * alpha;
+
+        render(batch);
+
+        bounds.pos.x = realX;
+        bounds.pos.y = realY;
+    }
 }
@@ -124,6 +124,11 @@ public abstract class PlayableEntity extends MobileEntity {
         return keysDown;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         if (--hurtCounter > 0 && ++counter % 5 == 0 || isDead())
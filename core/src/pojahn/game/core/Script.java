@@ -0,0 +1,190 @@
+package pojahn.game.core;
+
+import pojahn.game.events.Event;
+import pojahn.game.events.TaskEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of steps that the level runs outside of the entity list, such as "wait 60 frames, then open the door".
+ * <p>
+ * A script is built by chaining steps and started with {@link Level#start(Script)}. It is stepped for the first time
+ * the frame after it was started and keeps going through its steps within that frame until one of them has to wait.
+ * A script that waits a number of frames is not touched at all until it wakes up, while a script waiting for a
+ * condition checks it once per frame.
+ * <p>
+ * Scripts are stepped among the entities with a z-index of 0, where an entity added at the time the script was started
+ * would have been updated. This is the order the level's helpers had when they were run by wrapper entities. Those
+ * helpers, such as {@link Level#runOnceWhen}, {@link Level#interval} and {@link Level#discardWhen}, now return the
+ * script instead of the wrapper; cancel it with {@link #cancel()} where the wrapper used to be discarded.
+ */
+public class Script {
+
+    static final int DONE = -1;
+
+    private static final int RUN = 0;
+    private static final int WAIT_FRAMES = 1;
+    private static final int WAIT_UNTIL = 2;
+    private static final int EVERY = 3;
+    private static final int REPEAT_UNTIL = 4;
+
+    private static class Step {
+
+        final int type, frames;
+        final Event event;
+        final TaskEvent condition;
+
+        Step(final int type, final int frames, final Event event, final TaskEvent condition) {
+            this.type = type;
+            this.frames = frames;
+            this.event = event;
+            this.condition = condition;
+        }
+    }
+
+    private final List<Step> steps;
+    private int current, counter;
+    private boolean started, cancelled;
+
+    long order;
+
+    public Script() {
+        steps = new ArrayList<>();
+    }
+
+    /**
+     * Runs the given event and moves on to the next step in the same frame.
+     */
+    public Script run(final Event event) {
+        return append(new Step(RUN, 0, event, null));
+    }
+
+    /**
+     * Sleeps for the given amount of frames. Zero or less moves on immediately.
+     */
+    public Script waitFrames(final int frames) {
+        return append(new Step(WAIT_FRAMES, frames, null, null));
+    }
+
+    /**
+     * Checks the given condition once per frame, starting with the current one, and moves on once it returns true.
+     */
+    public Script waitUntil(final TaskEvent condition) {
+        return append(new Step(WAIT_UNTIL, 0, null, condition));
+    }
+
+    /**
+     * Runs the given event now and then every {@code frames}:th frame, until the script is cancelled. The script
+     * sleeps in between.
+     */
+    public Script every(final int frames, final Event event) {
+        if (frames <= 0)
+            throw new IllegalArgumentException("The frequency must be positive: " + frames);
+
+        return append(new Step(EVERY, frames, event, null));
+    }
+
+    /**
+     * Runs the given event now and then every {@code frames}:th frame. The condition is checked every frame before the
+     * event would be run, and the script moves on as soon as it returns true.
+     */
+    public Script every(final int frames, final Event event, final TaskEvent until) {
+        if (frames <= 0)
+            throw new IllegalArgumentException("The frequency must be positive: " + frames);
+
+        return append(new Step(EVERY, frames, event, until));
+    }
+
+    /**
+     * Runs the given event once per frame and checks the condition after it. The script moves on in the frame the
+     * condition returns true.
+     */
+    public Script repeatUntil(final Event event, final TaskEvent condition) {
+        return append(new Step(REPEAT_UNTIL, 0, event, condition));
+    }
+
+    /**
+     * Stops the script. A script that is asleep is dropped when it would have woken up.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return True if the script has been cancelled or has gone through all of its steps.
+     */
+    public boolean isDone() {
+        return cancelled || started && current >= steps.size();
+    }
+
+    void start() {
+        if (started)
+            throw new IllegalStateException("The script has already been started.");
+
+        started = true;
+    }
+
+    /**
+     * Runs the script until it has to wait.
+     *
+     * @return The amount of frames until it is to be resumed, or {@link #DONE}.
+     */
+    int resume() {
+        while (!cancelled && current < steps.size()) {
+            final Step step = steps.get(current);
+
+            switch (step.type) {
+                case RUN:
+                    step.event.eventHandling();
+                    current++;
+                    break;
+                case WAIT_FRAMES:
+                    current++;
+                    if (step.frames > 0)
+                        return step.frames;
+                    break;
+                case WAIT_UNTIL:
+                    if (!step.condition.eventHandling())
+                        return 1;
+                    current++;
+                    break;
+                case EVERY:
+                    if (step.condition == null) {
+                        step.event.eventHandling();
+                        return step.frames;
+                    }
+                    if (step.condition.eventHandling()) {
+                        counter = 0;
+                        current++;
+                        break;
+                    }
+                    if (counter++ % step.frames == 0)
+                        step.event.eventHandling();
+                    return 1;
+                case REPEAT_UNTIL:
+                    step.event.eventHandling();
+                    if (!step.condition.eventHandling())
+                        return 1;
+                    current++;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown step: " + step.type);
+            }
+        }
+
+        return DONE;
+    }
+
+    private Script append(final Step step) {
+        if (started)
+            throw new IllegalStateException("Steps can not be added to a script that has been started.");
+
+        steps.add(step);
+        return this;
+    }
+}
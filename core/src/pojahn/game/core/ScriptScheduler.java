@@ -0,0 +1,137 @@
+package pojahn.game.core;
+
+import pojahn.game.essentials.FrameWheel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the scripts of a level. The scripts that are due are kept sorted by their place in the update order and are
+ * stepped in between the entities by {@link #stepBefore(long)}, while sleeping scripts wait on a {@link FrameWheel}
+ * and cost nothing until they are due.
+ */
+class ScriptScheduler {
+
+    private static final Comparator<Script> BY_ORDER = Comparator.comparingLong(script -> script.order);
+
+    private final List<Script> starting, woken;
+    private final FrameWheel<Script> sleeping;
+    private final Consumer<Script> waker;
+    private Script[] due, scratch;
+    private int dueSize, next, kept;
+
+    ScriptScheduler() {
+        starting = new ArrayList<>();
+        woken = new ArrayList<>();
+        sleeping = new FrameWheel<>();
+        waker = woken::add;
+        due = new Script[16];
+        scratch = new Script[16];
+    }
+
+    void start(final Script script) {
+        script.start();
+        starting.add(script);
+    }
+
+    /**
+     * Makes the scripts whose {@link Script#order} is below the given one due, in the order they were started. Each of
+     * them is given its place in the update order by the given supplier.
+     */
+    void activate(final long startedBefore, final LongSupplier orders) {
+        int activated = 0;
+        while (activated < starting.size() && starting.get(activated).order < startedBefore) {
+            final Script script = starting.get(activated++);
+            script.order = orders.getAsLong();
+
+            if (dueSize == due.length)
+                due = Arrays.copyOf(due, dueSize * 2);
+
+            due[dueSize++] = script;
+        }
+
+        if (activated > 0)
+            starting.subList(0, activated).clear();
+    }
+
+    /**
+     * Wakes up the scripts that are due this frame and puts them in order among the others. Called once per frame,
+     * before any script is stepped.
+     */
+    void wake() {
+        sleeping.advance(waker);
+
+        final int count = woken.size();
+        if (count == 0)
+            return;
+
+        woken.sort(BY_ORDER);
+
+        if (due.length < dueSize + count)
+            due = Arrays.copyOf(due, Math.max(dueSize + count, due.length * 2));
+        if (scratch.length < dueSize)
+            scratch = new Script[Math.max(dueSize, scratch.length * 2)];
+
+        System.arraycopy(due, 0, scratch, 0, dueSize);
+
+        int head = 0, tail = 0, dest = 0;
+        while (head < dueSize || tail < count) {
+            if (tail == count || (head < dueSize && scratch[head].order < woken.get(tail).order))
+                due[dest++] = scratch[head++];
+            else
+                due[dest++] = woken.get(tail++);
+        }
+        Arrays.fill(scratch, 0, dueSize, null);
+
+        dueSize = dest;
+        woken.clear();
+    }
+
+    /**
+     * @return True if a script placed before the given order has yet to be stepped this frame.
+     */
+    boolean isDueBefore(final long order) {
+        return next < dueSize && due[next].order < order;
+    }
+
+    /**
+     * Resumes the due scripts placed before the given order, that have not been stepped this frame.
+     */
+    void stepBefore(final long order) {
+        while (isDueBefore(order)) {
+            final Script script = due[next++];
+            final int wait = script.isCancelled() ? Script.DONE : script.resume();
+
+            if (wait == Script.DONE || script.isCancelled())
+                continue;
+
+            if (wait == 1)
+                due[kept++] = script;
+            else
+                sleeping.schedule(script, wait);
+        }
+    }
+
+    /**
+     * Resumes the rest of the due scripts and keeps the ones that run again next frame.
+     */
+    void finish() {
+        stepBefore(Long.MAX_VALUE);
+
+        Arrays.fill(due, kept, dueSize, null);
+        dueSize = kept;
+        next = kept = 0;
+    }
+
+    void clear() {
+        starting.clear();
+        woken.clear();
+        sleeping.clear();
+        Arrays.fill(due, 0, dueSize, null);
+        dueSize = next = kept = 0;
+    }
+}
@@ -0,0 +1,65 @@
+package pojahn.game.core;
+
+import pojahn.game.core.Level.Tile;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the outcome of line of sight checks until it is invalidated, which the level does every frame and whenever
+ * the terrain changes.
+ * <p>
+ * Lines are keyed by their exact start and end pixels, in that order, so a cached answer is always the same as a new
+ * walk would give. The cache is direct mapped: a line that maps to a slot taken by another line replaces it.
+ */
+class SightCache {
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    private final long[] starts, ends;
+    private final int[] stamps;
+    private final boolean[] clear;
+    private int stamp;
+    int hits, misses;
+
+    SightCache() {
+        starts = new long[SIZE];
+        ends = new long[SIZE];
+        stamps = new int[SIZE];
+        clear = new boolean[SIZE];
+        stamp = 1;
+    }
+
+    /**
+     * @return True if there is no solid tile on the line between the two points.
+     */
+    boolean isClear(final int x0, final int y0, final int x1, final int y1, final Level level) {
+        final long start = (long) x0 << 32 | (y0 & 0xFFFFFFFFL);
+        final long end = (long) x1 << 32 | (y1 & 0xFFFFFFFFL);
+
+        long hash = start * 0x9E3779B97F4A7C15L ^ end * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 29;
+        final int slot = (int) hash & MASK;
+
+        if (stamps[slot] == stamp && starts[slot] == start && ends[slot] == end) {
+            hits++;
+            return clear[slot];
+        }
+
+        final boolean result = BaseLogic.searchTile(x0, y0, x1, y1, false, Tile.SOLID, level) == null;
+        starts[slot] = start;
+        ends[slot] = end;
+        stamps[slot] = stamp;
+        clear[slot] = result;
+        misses++;
+
+        return result;
+    }
+
+    void invalidate() {
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
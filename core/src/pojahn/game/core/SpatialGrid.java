@@ -0,0 +1,401 @@
+package pojahn.game.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A uniform grid over the level that buckets entities by their bounding box, for proximity queries that only visit
+ * the cells around the area of interest.
+ * <p>
+ * The buckets are refreshed by {@link #update(Entity)}, which the level calls after every entity update and once more
+ * for all entities after the frame. Candidates are always tested against their current bounds, so a query never
+ * returns an entity that doesn't match. It can however miss an entity that was moved by another entity or a script
+ * earlier in the same frame.
+ * <p>
+ * Entities outside the level are kept in the border cells. Entities that would occupy more than
+ * {@value #MAX_CELLS} cells, such as backgrounds, are kept in a separate list that every query visits.
+ */
+public class SpatialGrid {
+
+    private static final int MAX_CELLS = 64;
+    private static final int NOT_INDEXED = -1;
+    private static final int OVERSIZED = -2;
+
+    private final float cellSize;
+    private final int cols, rows;
+    private final Entity[][] cells;
+    private final int[] counts;
+    private final Box scratch;
+    private Entity[] oversized, nearest;
+    private float[] nearestDist;
+    private int oversizedCount, nearestCount, stamp;
+
+    /**
+     * @param width The width of the area to cover.
+     * @param height The height of the area to cover.
+     * @param cellSize The width and height of a cell. Somewhat larger than the typical entity works well.
+     */
+    public SpatialGrid(final float width, final float height, final float cellSize) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("The cell size must be positive: " + cellSize);
+
+        this.cellSize = cellSize;
+        cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        cells = new Entity[cols * rows][];
+        counts = new int[cols * rows];
+        oversized = new Entity[8];
+        nearest = new Entity[8];
+        nearestDist = new float[8];
+        scratch = new Box();
+    }
+
+    public void insert(final Entity entity) {
+        if (entity.gridX0 != NOT_INDEXED)
+            return;
+
+        place(entity);
+    }
+
+    public void remove(final Entity entity) {
+        if (entity.gridX0 == NOT_INDEXED)
+            return;
+
+        unplace(entity);
+        entity.gridX0 = NOT_INDEXED;
+    }
+
+    /**
+     * Moves the given entity to the cells its bounds overlap now, if they differ from the cells it was bucketed in.
+     */
+    public void update(final Entity entity) {
+        if (entity.gridX0 == NOT_INDEXED)
+            return;
+
+        final Box box = boxOf(entity);
+        final int x0 = col(box.x0), y0 = row(box.y0), x1 = col(box.x1), y1 = row(box.y1);
+
+        if (entity.gridX0 == OVERSIZED) {
+            if (cellCount(x0, y0, x1, y1) > MAX_CELLS)
+                return;
+        } else if (entity.gridX0 == x0 && entity.gridY0 == y0 && entity.gridX1 == x1 && entity.gridY1 == y1) {
+            return;
+        }
+
+        unplace(entity);
+        place(entity);
+    }
+
+    public boolean contains(final Entity entity) {
+        return entity.gridX0 != NOT_INDEXED;
+    }
+
+    public void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            for (int j = 0; j < counts[i]; j++)
+                cells[i][j].gridX0 = NOT_INDEXED;
+
+            if (cells[i] != null)
+                Arrays.fill(cells[i], 0, counts[i], null);
+        }
+        Arrays.fill(counts, 0);
+
+        for (int i = 0; i < oversizedCount; i++)
+            oversized[i].gridX0 = NOT_INDEXED;
+
+        Arrays.fill(oversized, 0, oversizedCount, null);
+        oversizedCount = 0;
+    }
+
+    /**
+     * Adds the entities of the given type whose bounding box overlap the given rectangle to {@code dest}.
+     *
+     * @param type The type of entities to look for, or {@code null} for any.
+     * @return {@code dest}
+     */
+    public <T extends Entity> List<T> queryRect(final float x, final float y, final float width, final float height, final Class<T> type, final List<T> dest) {
+        final int mark = ++stamp;
+        final int x0 = col(x), y0 = row(y), x1 = col(x + width), y1 = row(y + height);
+
+        for (int row = y0; row <= y1; row++) {
+            for (int col = x0; col <= x1; col++) {
+                final int cell = row * cols + col;
+                for (int i = 0; i < counts[cell]; i++)
+                    collectRect(cells[cell][i], mark, x, y, width, height, type, dest);
+            }
+        }
+
+        for (int i = 0; i < oversizedCount; i++)
+            collectRect(oversized[i], mark, x, y, width, height, type, dest);
+
+        return dest;
+    }
+
+    /**
+     * Adds the entities of the given type whose bounding box overlap the given circle to {@code dest}.
+     *
+     * @param type The type of entities to look for, or {@code null} for any.
+     * @return {@code dest}
+     */
+    public <T extends Entity> List<T> queryRadius(final float x, final float y, final float radius, final Class<T> type, final List<T> dest) {
+        final int mark = ++stamp;
+        final int x0 = col(x - radius), y0 = row(y - radius), x1 = col(x + radius), y1 = row(y + radius);
+
+        for (int row = y0; row <= y1; row++) {
+            for (int col = x0; col <= x1; col++) {
+                final int cell = row * cols + col;
+                for (int i = 0; i < counts[cell]; i++)
+                    collectRadius(cells[cell][i], mark, x, y, radius, type, dest);
+            }
+        }
+
+        for (int i = 0; i < oversizedCount; i++)
+            collectRadius(oversized[i], mark, x, y, radius, type, dest);
+
+        return dest;
+    }
+
+    /**
+     * Adds the {@code k} entities of the given type that are closest to the given point to {@code dest}, closest
+     * first. The distance is measured to the position of the entities, like {@link Entity#dist(Entity)} does. The grid
+     * is searched ring by ring outwards from the point, until no cell that remains can hold a closer entity.
+     *
+     * @param type The type of entities to look for, or {@code null} for any.
+     * @param filter Additional requirement on the entities, or {@code null}.
+     * @return {@code dest}
+     */
+    public <T extends Entity> List<T> nearest(final float x, final float y, final int k, final Class<T> type, final Predicate<? super T> filter, final List<T> dest) {
+        if (k <= 0)
+            return dest;
+
+        search(x, y, k, type, filter);
+        for (int i = 0; i < nearestCount; i++) {
+            @SuppressWarnings("unchecked")
+            final T entity = (T) nearest[i];
+            dest.add(entity);
+            nearest[i] = null;
+        }
+
+        return dest;
+    }
+
+    /**
+     * @return The closest entity of the given type that passes the filter, or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> T closest(final float x, final float y, final Class<T> type, final Predicate<? super T> filter) {
+        search(x, y, 1, type, filter);
+
+        final T entity = nearestCount > 0 ? (T) nearest[0] : null;
+        nearest[0] = null;
+        return entity;
+    }
+
+    private <T extends Entity> void search(final float x, final float y, final int k, final Class<T> type, final Predicate<? super T> filter) {
+        if (nearest.length < k) {
+            nearest = new Entity[k];
+            nearestDist = new float[k];
+        }
+        nearestCount = 0;
+
+        final int mark = ++stamp;
+        final int cx = col(x), cy = row(y);
+
+        for (int i = 0; i < oversizedCount; i++)
+            collectNearest(oversized[i], mark, x, y, k, type, filter);
+
+        for (int ring = 0; ; ring++) {
+            final int x0 = cx - ring, y0 = cy - ring, x1 = cx + ring, y1 = cy + ring;
+
+            for (int row = Math.max(0, y0); row <= Math.min(rows - 1, y1); row++) {
+                final boolean edgeRow = row == y0 || row == y1;
+                for (int col = Math.max(0, x0); col <= Math.min(cols - 1, x1); col++) {
+                    if (!edgeRow && col != x0 && col != x1)
+                        continue;
+
+                    final int cell = row * cols + col;
+                    for (int i = 0; i < counts[cell]; i++)
+                        collectNearest(cells[cell][i], mark, x, y, k, type, filter);
+                }
+            }
+
+            if (x0 <= 0 && y0 <= 0 && x1 >= cols - 1 && y1 >= rows - 1)
+                break;
+
+            if (nearestCount == k) {
+                final float reach = Math.min(
+                    Math.min(x - x0 * cellSize, (x1 + 1) * cellSize - x),
+                    Math.min(y - y0 * cellSize, (y1 + 1) * cellSize - y));
+
+                if (nearestDist[k - 1] <= reach)
+                    break;
+            }
+        }
+    }
+
+    private <T extends Entity> void collectRect(final Entity entity, final int mark, final float x, final float y, final float width, final float height, final Class<T> type, final List<T> dest) {
+        if (entity.gridMark == mark)
+            return;
+
+        entity.gridMark = mark;
+        if (type != null && !type.isInstance(entity))
+            return;
+
+        final Box box = boxOf(entity);
+        if (box.x0 <= x + width && box.x1 >= x && box.y0 <= y + height && box.y1 >= y) {
+            @SuppressWarnings("unchecked")
+            final T match = (T) entity;
+            dest.add(match);
+        }
+    }
+
+    private <T extends Entity> void collectRadius(final Entity entity, final int mark, final float x, final float y, final float radius, final Class<T> type, final List<T> dest) {
+        if (entity.gridMark == mark)
+            return;
+
+        entity.gridMark = mark;
+        if (type != null && !type.isInstance(entity))
+            return;
+
+        final Box box = boxOf(entity);
+        final float dx = x - Math.max(box.x0, Math.min(x, box.x1));
+        final float dy = y - Math.max(box.y0, Math.min(y, box.y1));
+        if (dx * dx + dy * dy <= radius * radius) {
+            @SuppressWarnings("unchecked")
+            final T match = (T) entity;
+            dest.add(match);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Entity> void collectNearest(final Entity entity, final int mark, final float x, final float y, final int k, final Class<T> type, final Predicate<? super T> filter) {
+        if (entity.gridMark == mark)
+            return;
+
+        entity.gridMark = mark;
+        if (type != null && !type.isInstance(entity))
+            return;
+
+        final float dist = (float) BaseLogic.distance(x, y, entity.x(), entity.y());
+        if (nearestCount == k && dist >= nearestDist[k - 1])
+            return;
+
+        if (filter != null && !filter.test((T) entity))
+            return;
+
+        int i = Math.min(nearestCount, k - 1);
+        while (i > 0 && nearestDist[i - 1] > dist) {
+            nearest[i] = nearest[i - 1];
+            nearestDist[i] = nearestDist[i - 1];
+            i--;
+        }
+        nearest[i] = entity;
+        nearestDist[i] = dist;
+        nearestCount = Math.min(nearestCount + 1, k);
+    }
+
+    private void place(final Entity entity) {
+        final Box box = boxOf(entity);
+        final int x0 = col(box.x0), y0 = row(box.y0), x1 = col(box.x1), y1 = row(box.y1);
+
+        if (cellCount(x0, y0, x1, y1) > MAX_CELLS) {
+            if (oversizedCount == oversized.length)
+                oversized = Arrays.copyOf(oversized, oversizedCount * 2);
+
+            oversized[oversizedCount++] = entity;
+            entity.gridX0 = OVERSIZED;
+            return;
+        }
+
+        for (int row = y0; row <= y1; row++) {
+            for (int col = x0; col <= x1; col++) {
+                final int cell = row * cols + col;
+                if (cells[cell] == null)
+                    cells[cell] = new Entity[4];
+                else if (counts[cell] == cells[cell].length)
+                    cells[cell] = Arrays.copyOf(cells[cell], counts[cell] * 2);
+
+                cells[cell][counts[cell]++] = entity;
+            }
+        }
+
+        entity.gridX0 = x0;
+        entity.gridY0 = y0;
+        entity.gridX1 = x1;
+        entity.gridY1 = y1;
+    }
+
+    private void unplace(final Entity entity) {
+        if (entity.gridX0 == OVERSIZED) {
+            removeFrom(oversized, oversizedCount, entity);
+            oversized[--oversizedCount] = null;
+            return;
+        }
+
+        for (int row = entity.gridY0; row <= entity.gridY1; row++) {
+            for (int col = entity.gridX0; col <= entity.gridX1; col++) {
+                final int cell = row * cols + col;
+                removeFrom(cells[cell], counts[cell], entity);
+                cells[cell][--counts[cell]] = null;
+            }
+        }
+    }
+
+    /**
+     * Removes the entity from the first {@code count} slots of the array, keeping the order of the others. The last
+     * slot is left for the caller to clear.
+     */
+    private static void removeFrom(final Entity[] array, final int count, final Entity entity) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == entity) {
+                System.arraycopy(array, i + 1, array, i, count - i - 1);
+                return;
+            }
+        }
+        throw new IllegalStateException("The entity is not in the cell it was placed in.");
+    }
+
+    private int cellCount(final int x0, final int y0, final int x1, final int y1) {
+        return (x1 - x0 + 1) * (y1 - y0 + 1);
+    }
+
+    private int col(final float x) {
+        return Math.max(0, Math.min(cols - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(final float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    /**
+     * The axis aligned box of the entity. A rotated entity gets the box of the circle around it.
+     */
+    private Box boxOf(final Entity entity) {
+        final Box box = scratch;
+        final float x = entity.bounds.pos.x;
+        final float y = entity.bounds.pos.y;
+        final float width = entity.bounds.size.width;
+        final float height = entity.bounds.size.height;
+
+        if (entity.bounds.rotation == 0) {
+            box.x0 = x;
+            box.y0 = y;
+            box.x1 = x + width;
+            box.y1 = y + height;
+        } else {
+            final float radius = (float) Math.sqrt(width * width + height * height) / 2;
+            final float cx = x + width / 2;
+            final float cy = y + height / 2;
+            box.x0 = cx - radius;
+            box.y0 = cy - radius;
+            box.x1 = cx + radius;
+            box.y1 = cy + radius;
+        }
+        return box;
+    }
+
+    private static class Box {
+        float x0, y0, x1, y1;
+    }
+}
@@ -143,6 +143,11 @@ public class Thor extends PathDrone {
         }
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         super.render(batch);
@@ -62,6 +62,11 @@ public class TmxEntity extends Entity {
         throw new UnsupportedOperationException("");
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         if (tiledMapRenderer == null) {
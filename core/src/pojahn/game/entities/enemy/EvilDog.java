@@ -22,6 +22,7 @@ public class EvilDog extends MobileEntity {
     private int soundDelay, soundCounter;
     private Animation<Image2D> idleImg, huntImg;
     private Sound hitSound;
+    private final Vector2 direction = new Vector2();
 
     public EvilDog(final float x, final float y, final float maxDistance, final Entity... targets) {
         move(x, y);
@@ -68,7 +69,7 @@ public class EvilDog extends MobileEntity {
 
             if (maxDistance < 0 || maxDistance > BaseLogic.distance(this, closest)) {
 
-                final Vector2 norP = normalize(closest, this);
+                final Vector2 norP = normalize(closest.x(), closest.y(), x(), y(), direction);
 
                 final float accX = thrust * norP.x - drag * vx;
                 final float accY = thrust * norP.y - drag * vy;
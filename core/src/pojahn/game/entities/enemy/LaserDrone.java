@@ -146,7 +146,7 @@ public class LaserDrone extends PathDrone {
                 }
 
                 for (final Entity entity : targets)
-                    if (entity.hasActionEvent() && BaseLogic.lineRectangle((int) x(), (int) y(), (int) targetX, (int) targetY, entity.bounds.toRectangle()))
+                    if (entity.hasActionEvent() && BaseLogic.lineRectangle((int) x(), (int) y(), (int) targetX, (int) targetY, entity.x(), entity.y(), entity.width(), entity.height()))
                         entity.runActionEvent(this);
 
                 if (++ducounter % laserDuration == 0) {
@@ -165,6 +165,11 @@ public class LaserDrone extends PathDrone {
             .collect(Collectors.toUnmodifiableList());
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch b) {
         super.render(b);
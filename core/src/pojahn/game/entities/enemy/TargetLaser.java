@@ -72,7 +72,7 @@ public class TargetLaser extends PathDrone {
             l.add(impact.getClone().move(finalTarget.x - impact.halfWidth(), finalTarget.y - impact.halfHeight()));
 
         for (final Entity entity : targets)
-            if (entity.hasActionEvent() && BaseLogic.lineRectangle((int) cx, (int) cy, (int) finalTarget.x, (int) finalTarget.y, entity.bounds.toRectangle()))
+            if (entity.hasActionEvent() && BaseLogic.lineRectangle((int) cx, (int) cy, (int) finalTarget.x, (int) finalTarget.y, entity.x(), entity.y(), entity.width(), entity.height()))
                 entity.runActionEvent(this);
 
         if (faceTarget)
@@ -134,6 +134,11 @@ public class TargetLaser extends PathDrone {
         this.highLaserPrio = highLaserPrio;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch b) {
 
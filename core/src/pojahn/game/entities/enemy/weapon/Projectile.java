@@ -23,6 +23,7 @@ public abstract class Projectile extends MobileEntity {
     private final List<Entity> subjects;
     private Entity target;
     private Vector2 cachedTarget;
+    private final Vector2 targetPos = new Vector2();
     private boolean rotate;
     private int trailerDelay;
     private int trailerCounter;
@@ -114,7 +115,7 @@ public abstract class Projectile extends MobileEntity {
 
     private Vector2 getTarget() {
         if (follow) {
-            return target.getPos();
+            return target.getPos(targetPos);
         } else {
             if (cachedTarget == null)
                 cachedTarget = BaseLogic.findEdgePoint(x(), y(), target.x(), target.y(), getLevel());
@@ -124,7 +125,7 @@ public abstract class Projectile extends MobileEntity {
     }
 
     private void collisionCheck() {
-        if (outOfBounds() || getOccupyingCells().contains(Level.Tile.SOLID)) {
+        if (outOfBounds() || Level.Tile.SOLID.in(getOccupyingTiles())) {
             impact(null);
         } else {
             Stream.of(List.of(target), getObstacles(), subjects)
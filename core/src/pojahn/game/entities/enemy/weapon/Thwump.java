@@ -2,7 +2,6 @@ package pojahn.game.entities.enemy.weapon;
 
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import pojahn.game.core.BaseLogic;
 import pojahn.game.core.Entity;
 import pojahn.game.core.MobileEntity;
 import pojahn.game.essentials.Animation;
@@ -24,6 +23,8 @@ public final class Thwump extends MobileEntity {
     private final List<Entity> targets;
     private Event slamEvent, retreatedEvent, detectEvent;
     private boolean attacking, scanning;
+    private final Vector2 towards = new Vector2();
+    private final Rectangle scanningArea = new Rectangle();
 
     private Thwump(final Builder builder) {
         this.attackSpeed = builder.attackSpeed;
@@ -64,21 +65,21 @@ public final class Thwump extends MobileEntity {
             if (scanning) {
                 final Rectangle scanningArea = getScanningArea();
 
-                targets.stream()
-                    .filter(Entity::isActive)
-                    .filter(target -> BaseLogic.rectanglesCollide(target.bounds.toRectangle(), scanningArea))
-                    .filter(this::canSee)
-                    .findAny()
-                    .ifPresent(entity -> {
+                for (int i = 0; i < targets.size(); i++) {
+                    final Entity target = targets.get(i);
+
+                    if (target.isActive() && target.collidesWith(scanningArea) && canSee(target)) {
                         scanning = false;
                         attacking = true;
                         setImage(attackImage);
                         setMoveSpeed(attackSpeed);
                         Optional.ofNullable(detectEvent).ifPresent(Event::eventHandling);
-                    });
+                        break;
+                    }
+                }
             } else if (attacking) {
                 final Vector2 target = getDirection();
-                final Vector2 vector = attemptTowards(target.x, target.y, getMoveSpeed());
+                final Vector2 vector = attemptTowards(target.x, target.y, getMoveSpeed(), towards);
 
                 if (occupiedAt(vector.x, vector.y)) {
                     attacking = false;
@@ -90,7 +91,7 @@ public final class Thwump extends MobileEntity {
                     move(vector);
                 }
             } else {
-                final Vector2 vector = attemptTowards(initialPosition.x, initialPosition.y, getMoveSpeed());
+                final Vector2 vector = attemptTowards(initialPosition.x, initialPosition.y, getMoveSpeed(), towards);
                 if (occupiedAt(vector.x, vector.y)) {
                     scanning = true;
                     setMoveSpeed(attackSpeed);
@@ -108,13 +109,13 @@ public final class Thwump extends MobileEntity {
     private Vector2 getDirection() {
         switch (direction) {
             case W:
-                return new Vector2(0, y());
+                return towards.set(0, y());
             case E:
-                return new Vector2(getLevel().getWidth(), y());
+                return towards.set(getLevel().getWidth(), y());
             case N:
-                return new Vector2(x(), 0);
+                return towards.set(x(), 0);
             case S:
-                return new Vector2(x(), getLevel().getHeight());
+                return towards.set(x(), getLevel().getHeight());
         }
         throw new RuntimeException("Unhandled direction");
     }
@@ -123,16 +124,16 @@ public final class Thwump extends MobileEntity {
         final Rectangle rectangle;
         switch (direction) {
             case W:
-                rectangle = bounds.toRectangle().setX(0).setWidth(initialPosition.x);
+                rectangle = bounds.toRectangle(scanningArea).setX(0).setWidth(initialPosition.x);
                 break;
             case E:
-                rectangle = bounds.toRectangle().setWidth(Integer.MAX_VALUE);
+                rectangle = bounds.toRectangle(scanningArea).setWidth(Integer.MAX_VALUE);
                 break;
             case N:
-                rectangle = bounds.toRectangle().setY(0).setHeight(initialPosition.y);
+                rectangle = bounds.toRectangle(scanningArea).setY(0).setHeight(initialPosition.y);
                 break;
             case S:
-                rectangle = bounds.toRectangle().setHeight(Integer.MAX_VALUE);
+                rectangle = bounds.toRectangle(scanningArea).setHeight(Integer.MAX_VALUE);
                 break;
             default:
                 throw new RuntimeException("Unhandled direction");
@@ -157,7 +157,7 @@ public class Weapon extends PathDrone {
                 final Vector2 front = getFrontPosition();
                 final Vector2 edge = BaseLogic.findEdgePoint(centerX(), centerY(), front.x, front.y, getLevel());
 
-                return BaseLogic.lineRectangle(front.x, front.y, edge.x, edge.y, currTarget.bounds.toRectangle()) && canSee(currTarget);
+                return BaseLogic.lineRectangle(front.x, front.y, edge.x, edge.y, currTarget.x(), currTarget.y(), currTarget.width(), currTarget.height()) && canSee(currTarget);
             }
         } else
             return false;
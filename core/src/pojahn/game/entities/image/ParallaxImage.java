@@ -30,6 +30,11 @@ public class ParallaxImage extends Entity {
         this.rateY = rateY;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         final Engine e = getEngine();
@@ -44,6 +44,11 @@ public class RepeatingParallaxImage extends Entity {
         camera.setToOrtho(true);
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         final Engine e = getEngine();
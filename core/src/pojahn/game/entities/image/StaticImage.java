@@ -5,6 +5,11 @@ import pojahn.game.core.Entity;
 
 public class StaticImage extends Entity {
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         getEngine().hudCamera();
@@ -40,6 +40,11 @@ public class FlyMan extends PlayableEntity {
         this.alwaysMove = alwaysMove;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         getImage().stop(!moving);
@@ -4,6 +4,7 @@ import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import pojahn.game.core.Level;
+import pojahn.game.core.Level.Tile;
 import pojahn.game.core.PlayableEntity;
 import pojahn.game.essentials.Keystrokes;
 
@@ -59,6 +60,11 @@ public class GravityMan extends PlayableEntity {
         prevStrokes = currStrokes;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         getImage().stop(vel.x == 0);
@@ -173,8 +179,26 @@ public class GravityMan extends PlayableEntity {
     }
 
 
+    /**
+     * Steps towards the target 0.2 pixels at a time. The columns that {@link Level#walkX(int, int, int, int, int)} finds
+     * the run can pass without landing on a slope, a wall or a step down are passed without probing the terrain. Only
+     * the steps on the column where the walk stopped, or near an obstacle, are probed in full.
+     */
     protected void runLeft(final float targetX) {
+        float walkedY = Float.NaN;
+        int walkable = 0;
+
         for (float next = bounds.pos.x; next >= targetX; next -= 0.2f) {
+            if (bounds.pos.y != walkedY) {
+                walkedY = bounds.pos.y;
+                walkable = walkable((int) next, targetX, -1);
+            }
+            if ((int) next >= walkable && clearOfObstacles(next)) {
+                bounds.pos.x = next;
+                continue;
+            }
+            walkedY = Float.NaN;
+
             if (!occupiedAt(next, y())) {
                 bounds.pos.x = next;
                 if (!occupiedAt(x(), y() + 1) && occupiedAt(x(), y() + 2))
@@ -189,8 +213,24 @@ public class GravityMan extends PlayableEntity {
         }
     }
 
+    /**
+     * The same as {@link #runLeft(float)}, to the right.
+     */
     protected void runRight(final float targetX) {
+        float walkedY = Float.NaN;
+        int walkable = 0;
+
         for (float next = x(); next <= targetX; next += 0.2f) {
+            if (bounds.pos.y != walkedY) {
+                walkedY = bounds.pos.y;
+                walkable = walkable((int) next, targetX, 1);
+            }
+            if ((int) next <= walkable && clearOfObstacles(next)) {
+                bounds.pos.x = next;
+                continue;
+            }
+            walkedY = Float.NaN;
+
             if (!occupiedAt(next, y())) {
                 bounds.pos.x = next;
                 if (!occupiedAt(x(), y() + 1) && occupiedAt(x(), y() + 2))
@@ -205,14 +245,36 @@ public class GravityMan extends PlayableEntity {
         }
     }
 
+    /**
+     * @param step -1 when running left and 1 when running right.
+     * @return The last column towards the target that can be passed at the current row without a closer look, or the
+     * column behind the given one if not even that one can.
+     */
+    private int walkable(final int column, final float targetX, final int step) {
+        final int row = (int) y();
+        if ((int) (y() + 1) != row + 1 || (int) (y() + 2) != row + 2)
+            return column - step;
+
+        final int distance = Math.abs((int) targetX - column) * step;
+        final int walk = getLevel().walkX(column, row, (int) width(), (int) height(), distance);
+
+        return column + (walk - 1) * step;
+    }
+
+    /**
+     * @return True if no obstacle is touched by any of the three probes a step makes from the given x coordinate.
+     */
+    private boolean clearOfObstacles(final float x) {
+        return !obstacleCollision(x, y()) && !obstacleCollision(x, y() + 1) && !obstacleCollision(x, y() + 2);
+    }
+
     protected boolean canSlopeLeft(final float targetX) {
         final int y = (int) y() - 1;
         final int tar = (int) targetX;
         final Level l = getLevel();
 
-        for (int i = 0; i < height(); i++)
-            if (l.isSolid(tar, y + i))
-                return false;
+        if (Tile.SOLID.in(l.tilesIn(tar, y, 1, (int) Math.ceil(height()))))
+            return false;
 
         return !obstacleCollision(targetX, bounds.pos.y);
     }
@@ -222,9 +284,8 @@ public class GravityMan extends PlayableEntity {
         final int tar = (int) (targetX + width());
         final Level l = getLevel();
 
-        for (int i = 0; i < height(); i++)
-            if (l.isSolid(tar, y + i))
-                return false;
+        if (Tile.SOLID.in(l.tilesIn(tar, y, 1, (int) Math.ceil(height()))))
+            return false;
 
         return !obstacleCollision(targetX, y());
     }
@@ -6,7 +6,6 @@ import pojahn.game.core.BaseLogic;
 import pojahn.game.core.MobileEntity;
 import pojahn.game.essentials.GravityAware;
 import pojahn.game.events.Event;
-import pojahn.lang.Obj;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,6 +23,7 @@ public class EarthDrone extends MobileEntity {
     private final GravityAware gravityAware;
     private ReachStrategy reachStrategy;
     private Vector2 waypointDirection;
+    private final Vector2 direction = new Vector2();
     private int waypointIndex, chillFrames;
     private float reachTolerance;
 
@@ -113,8 +113,9 @@ public class EarthDrone extends MobileEntity {
         if (x() == waypoint.targetX() && y() == waypoint.getTargetY()) {
             reach(waypoint);
         } else if (reachStrategy == ReachStrategy.SOFT) {
-            final Vector2 currentDirection = BaseLogic.normalize(x(), y(), waypoint.targetX(), waypoint.getTargetY());
-            waypointDirection = Obj.nonNull(waypointDirection, currentDirection::cpy);
+            final Vector2 currentDirection = BaseLogic.normalize(x(), y(), waypoint.targetX(), waypoint.getTargetY(), direction);
+            if (waypointDirection == null)
+                waypointDirection = currentDirection.cpy();
 
             if (waypointDirection.dot(currentDirection) < 0) {
                 reach(waypoint);
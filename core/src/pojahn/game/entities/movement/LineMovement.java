@@ -14,6 +14,7 @@ public class LineMovement extends MobileEntity {
     private Movement movement;
     private Sound slamSound;
     private boolean leftOrUp;
+    private final Vector2 towards = new Vector2();
 
     public LineMovement(final Movement movement) {
         if (movement == null)
@@ -52,9 +53,9 @@ public class LineMovement extends MobileEntity {
         final Vector2 next;
 
         if (movement == Movement.HORIZONTAL)
-            next = attemptTowards(leftOrUp ? 0 : getLevel().getWidth(), y(), getMoveSpeed());
+            next = attemptTowards(leftOrUp ? 0 : getLevel().getWidth(), y(), getMoveSpeed(), towards);
         else
-            next = attemptTowards(x(), leftOrUp ? 0 : getLevel().getHeight(), getMoveSpeed());
+            next = attemptTowards(x(), leftOrUp ? 0 : getLevel().getHeight(), getMoveSpeed(), towards);
 
         if (!occupiedAt(next.x, next.y))
             move(next);
@@ -16,6 +16,7 @@ public class PathDrone extends MobileEntity {
     private boolean rock, skip;
     private int dataCounter, stillCounter;
     private boolean playEvent;
+    private final Vector2 towards = new Vector2();
 
     public PathDrone(final float x, final float y) {
         move(x, y);
@@ -134,7 +135,7 @@ public class PathDrone extends MobileEntity {
         if (isFrozen())
             return;
 
-        final Vector2 next = attemptTowards(targetX, targetY, steps);
+        final Vector2 next = attemptTowards(targetX, targetY, steps, towards);
 
         if (rock) {
             final boolean canNext = !occupiedAt(next.x, next.y);
@@ -153,7 +154,7 @@ public class PathDrone extends MobileEntity {
         if (isFrozen())
             return;
 
-        final Vector2 next = attemptTowards(targetX, targetY, steps);
+        final Vector2 next = attemptTowards(targetX, targetY, steps, towards);
 
         if (rock) {
             if (smartMove(next.x, next.y)) {
@@ -23,6 +23,7 @@ public class Shuttle extends MobileEntity {
     public float thrust, drag, delta, vx, vy;
     private int counter;
     private Vector2 waypointDirection;
+    private final Vector2 direction = new Vector2();
     private final List<Waypoint> waypoints;
 
     public Shuttle(final float x, final float y) {
@@ -88,7 +89,7 @@ public class Shuttle extends MobileEntity {
             if (x() == wp.target.x && y() == wp.target.y)    //Make sure we don't get NaN when normalizing.
                 bounds.pos.x--;
 
-            final Vector2 currentDirection = BaseLogic.normalize(bounds.pos.x, bounds.pos.y, wp.target.x, wp.target.y);
+            final Vector2 currentDirection = BaseLogic.normalize(bounds.pos.x, bounds.pos.y, wp.target.x, wp.target.y, direction);
 
             if (waypointDirection == null)
                 waypointDirection = currentDirection.cpy();
@@ -49,7 +49,7 @@ public class Bouncer extends MobileEntity {
                 if (this.dir != null) {
                     dir = this.dir;
                 } else {
-                    dir = BaseLogic.getDirection(BaseLogic.normalize(centerX(), centerY(), man.prevX() - man.halfWidth(), man.prevY() - man.halfHeight()));
+                    dir = BaseLogic.getDirection(man.prevX() - man.halfWidth(), man.prevY() - man.halfHeight(), centerX(), centerY());
 //                    dir = Direction.invert(dir);
                 }
 
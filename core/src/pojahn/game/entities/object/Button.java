@@ -2,7 +2,6 @@ package pojahn.game.entities.object;
 
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.Rectangle;
-import pojahn.game.core.BaseLogic;
 import pojahn.game.core.MobileEntity;
 import pojahn.game.entities.platform.SolidPlatform;
 import pojahn.game.essentials.Direction;
@@ -47,7 +46,7 @@ public class Button extends SolidPlatform {
 
         if (!pushed) {
             for (final MobileEntity subject : subjects) {
-                if (BaseLogic.rectanglesCollide(subject.bounds.toRectangle(), getDummy())) {
+                if (subject.collidesWith(getDummy())) {
                     pushed = true;
                     if (pushSound != null)
                         sounds.play(pushSound);
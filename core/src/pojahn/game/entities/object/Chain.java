@@ -46,6 +46,11 @@ public class Chain extends Entity {
         this.pt2 = pt2;
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public final void render(final SpriteBatch batch) {
         final Vector2 endPoint1 = src1 == null ? pt1 : new Vector2(src1.centerX() - halfWidth(), src1.centerY() - halfHeight());
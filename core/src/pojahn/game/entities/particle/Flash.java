@@ -16,6 +16,11 @@ public class Flash extends Particle {
         zIndex(Integer.MAX_VALUE);
     }
 
+    @Override
+    protected boolean hasBasicRender() {
+        return false;
+    }
+
     @Override
     public void render(final SpriteBatch batch) {
         final Dimension viewport = getEngine().getScreenSize();
@@ -43,7 +43,7 @@ public class EarthSolidPlatform extends EarthDrone {
                 if (!sub.occupiedAt(nextX, nextY))
                     sub.move(nextX, nextY);
 
-                if (BaseLogic.rectanglesCollide(bounds.toRectangle(), sub.bounds.toRectangle()))
+                if (BaseLogic.rectanglesCollide(x(), y(), width(), height(), sub.x(), sub.y(), sub.width(), sub.height()))
                     collisionResponse(sub);
             });
     }
@@ -11,8 +11,6 @@ import pojahn.lang.Obj;
 
 import java.util.List;
 
-import static pojahn.game.core.BaseLogic.rectanglesCollide;
-
 public class PushableObject extends MobileEntity {
 
     public float mass, gravity, damping, fallSpeedLimit, deacceleration, pushStrength;
@@ -77,7 +75,7 @@ public class PushableObject extends MobileEntity {
             for (final MobileEntity mobile : pushers) {
                 if (!mustStand || !mobile.canDown()) {
 
-                    if (rectanglesCollide(mobile.bounds.toRectangle(), dummy)) {
+                    if (mobile.collidesWith(dummy)) {
                         if (centerX() > mobile.centerX())
                             vel.x = -pushStrength;
                         else
@@ -0,0 +1,147 @@
+package pojahn.game.essentials;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the amount of bytes the current thread has allocated and sums up the garbage collection pauses that the JVM
+ * reports. Both rely on the HotSpot management extensions, and report nothing on a JVM that lacks them.
+ * <p>
+ * The notifications of a collection arrive on a JMX thread once the collection is over, so a pause is picked up by the
+ * first {@link #takePauseMillis()} after the notification rather than by the frame the pause interrupted. Collections
+ * that the JVM reports as concurrent are not counted.
+ */
+public class AllocationMeter {
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final long overhead;
+    private final AtomicLong pauses, pauseMillis;
+    private final NotificationListener listener;
+    private boolean listening;
+
+    public AllocationMeter() {
+        threads = threadBean();
+        pauses = new AtomicLong();
+        pauseMillis = new AtomicLong();
+        listener = this::handleNotification;
+        overhead = threads == null ? 0 : measureOverhead();
+    }
+
+    /**
+     * @return True if the allocations of the current thread can be read.
+     */
+    public boolean isSupported() {
+        return threads != null;
+    }
+
+    /**
+     * @return The amount of bytes the current thread has allocated since it started, or 0 if this is not supported.
+     */
+    public long allocatedBytes() {
+        return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @param start A value returned by {@link #allocatedBytes()} on the same thread.
+     * @return The amount of bytes the current thread has allocated since then, not counting the reads themselves.
+     */
+    public long bytesSince(final long start) {
+        return Math.max(0, allocatedBytes() - start - overhead);
+    }
+
+    /**
+     * Starts summing up the pauses of the garbage collectors. Does nothing if already started.
+     */
+    public void listen() {
+        if (listening)
+            return;
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter)
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+        }
+        listening = true;
+    }
+
+    /**
+     * Stops summing up the pauses. The listener would otherwise keep this meter reachable for as long as the JVM runs.
+     */
+    public void stopListening() {
+        if (!listening)
+            return;
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(listener);
+                } catch (final ListenerNotFoundException e) {
+                    System.err.println("The GC listener was not registered on " + collector.getName() + ".");
+                }
+            }
+        }
+        listening = false;
+    }
+
+    /**
+     * @return The amount of pauses since the previous call.
+     */
+    public long takePauses() {
+        return pauses.getAndSet(0);
+    }
+
+    /**
+     * @return The total length in milliseconds of the pauses since the previous call.
+     */
+    public long takePauseMillis() {
+        return pauseMillis.getAndSet(0);
+    }
+
+    private void handleNotification(final Notification notification, final Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+            return;
+
+        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (info.getGcAction().contains("concurrent"))
+            return;
+
+        pauses.incrementAndGet();
+        pauseMillis.addAndGet(info.getGcInfo().getDuration());
+    }
+
+    /**
+     * The JVM may allocate while answering, which would otherwise be counted towards every measurement.
+     */
+    private long measureOverhead() {
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            final long start = allocatedBytes();
+            least = Math.min(least, allocatedBytes() - start);
+        }
+        return least;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean))
+                return null;
+
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (!threads.isThreadAllocatedMemorySupported())
+                return null;
+
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        } catch (final UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
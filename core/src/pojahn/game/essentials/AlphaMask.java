@@ -0,0 +1,164 @@
+package pojahn.game.essentials;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The opaque pixels of an image, one bit per pixel. The rows are stored one after the other, each padded to whole
+ * 64-bit words, with the pixel at column x in bit {@code x & 63} of word {@code x >>> 6} of its row.
+ * <p>
+ * Masks are immutable and interned by their content, so identical images, such as repeated animation frames, share
+ * one mask. Every mask is created through the interning, so two masks are equal only if they are the same instance
+ * and {@code ==} can be used in place of {@link #equals(Object)}. The table holds the masks weakly, keyed by equality:
+ * a mask is kept as long as some image uses it and dropped once none does, so a later image with the same pixels may
+ * get a new instance. That is safe since nothing holds on to the dropped one.
+ */
+public final class AlphaMask {
+
+    private static final Map<AlphaMask, WeakReference<AlphaMask>> INTERNED = new WeakHashMap<>();
+
+    private final int width, height, wordsPerRow, hash;
+    private final long[] words;
+    private AlphaMask mirrored;
+
+    private AlphaMask(final int width, final int height, final long[] words) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+        wordsPerRow = (width + 63) >>> 6;
+        hash = 31 * (31 * width + height) + Arrays.hashCode(words);
+    }
+
+    /**
+     * @return The mask of the pixels in the given image whose alpha is not zero.
+     */
+    public static AlphaMask of(final Pixmap img) {
+        final int width = img.getWidth();
+        final int height = img.getHeight();
+        final int wordsPerRow = (width + 63) >>> 6;
+        final long[] words = new long[wordsPerRow * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((img.getPixel(x, y) & 0x000000FF) != 0)
+                    words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+            }
+        }
+
+        return intern(new AlphaMask(width, height, words));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return True if the given pixel is opaque. Pixels outside the mask are not.
+     */
+    public boolean isOpaque(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * @return The 64 pixels from column {@code index * 64} of the given row, with the first in the lowest bit.
+     */
+    public long word(final int row, final int index) {
+        return words[row * wordsPerRow + index];
+    }
+
+    /**
+     * Compares a run of pixels in a row of this mask with a run in a row of another mask, up to 64 pixels at a time.
+     * The columns must be within both masks, while rows outside a mask are treated as transparent.
+     *
+     * @return True if any of the {@code count} pixels from column {@code from} of the given row is opaque in both this
+     * mask and the other, where the other is read from column {@code otherFrom} of {@code otherRow}.
+     */
+    public boolean overlaps(final int row, final int from, final AlphaMask other, final int otherRow, final int otherFrom, final int count) {
+        if (row < 0 || row >= height || otherRow < 0 || otherRow >= other.height)
+            return false;
+
+        final int base = row * wordsPerRow;
+        final int otherBase = otherRow * other.wordsPerRow;
+
+        for (int i = 0; i < count; i += 64) {
+            final long bits = bits(base, from + i) & other.bits(otherBase, otherFrom + i);
+            final int left = count - i;
+
+            if ((left >= 64 ? bits : bits & ((1L << left) - 1)) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The 64 pixels from the given column of the row that starts at the given word, with the first in the
+     * lowest bit. Pixels past the end of the row are read as transparent.
+     */
+    private long bits(final int base, final int column) {
+        final int word = column >>> 6;
+        final int shift = column & 63;
+        final long low = words[base + word] >>> shift;
+
+        return shift == 0 || word + 1 == wordsPerRow ? low : low | words[base + word + 1] << -shift;
+    }
+
+    /**
+     * @return This mask flipped horizontally. It is created on first use and then kept.
+     */
+    public AlphaMask mirrored() {
+        if (mirrored == null) {
+            final long[] flipped = new long[words.length];
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (isOpaque(x, y)) {
+                        final int column = width - 1 - x;
+                        flipped[y * wordsPerRow + (column >>> 6)] |= 1L << column;
+                    }
+                }
+            }
+
+            final AlphaMask mask = intern(new AlphaMask(width, height, flipped));
+            mask.mirrored = this;
+            mirrored = mask;
+        }
+        return mirrored;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof AlphaMask))
+            return false;
+
+        final AlphaMask other = (AlphaMask) obj;
+        return width == other.width && height == other.height && hash == other.hash && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private static synchronized AlphaMask intern(final AlphaMask mask) {
+        final WeakReference<AlphaMask> ref = INTERNED.get(mask);
+        final AlphaMask existing = ref == null ? null : ref.get();
+        if (existing != null)
+            return existing;
+
+        INTERNED.put(mask, new WeakReference<>(mask));
+        return mask;
+    }
+}
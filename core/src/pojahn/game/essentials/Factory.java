@@ -89,6 +89,11 @@ public class Factory {
                 zIndex(Integer.MAX_VALUE);
             }
 
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 message.draw(batch, font);
@@ -102,6 +107,11 @@ public class Factory {
                 zIndex(Integer.MAX_VALUE);
             }
 
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 getEngine().hudCamera();
@@ -0,0 +1,369 @@
+package pojahn.game.essentials;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long each stage of a frame takes. The timings of the latest frames are kept in a ring buffer, while
+ * the time spent updating entities is also summed up per concrete entity class. Per frame counts, such as the amount
+ * of entities drawn, are kept alongside the timings.
+ * <p>
+ * Recording is off until {@code enabled} is set. A rendered frame may contain several simulated frames, whose
+ * timings are summed up until {@link #commit()} is called.
+ * <p>
+ * The bytes allocated by the game loop and by the painting are kept as counters, along with the garbage collection
+ * pauses that were reported since the previous commit. See {@link AllocationMeter} for how these are read.
+ */
+public class FrameProfiler {
+
+    public enum Phase {
+        PLACE,
+        SORT,
+        FOCUS,
+        UPDATE,
+        SCRIPTS,
+        CHECKPOINTS,
+        PAINT
+    }
+
+    public enum Counter {
+        DRAWN,
+        CULLED,
+        FLUSHES,
+        DRAW_CALLS,
+        SIGHT_HITS,
+        SIGHT_MISSES,
+        LOOP_BYTES,
+        PAINT_BYTES,
+        GC_PAUSES,
+        GC_MILLIS
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final int OVERLAY_CLASSES = 5;
+
+    public boolean enabled, showOverlay;
+
+    private final long[] frames, counters;
+    private final int[] ticks;
+    private final long[] current, currentCounts;
+    private final int capacity;
+    private final Map<Class<?>, Integer> classSlots;
+    private final StringBuilder overlayText;
+    private final AllocationMeter meter;
+    private Class<?>[] classes;
+    private String[] labels;
+    private long[] classFrame, classLast, classTotal, classCalls;
+    private boolean[] picked;
+    private int head, size, currentTicks;
+    private long frameCounter;
+
+    public FrameProfiler() {
+        this(600);
+    }
+
+    public FrameProfiler(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+
+        this.capacity = capacity;
+        frames = new long[capacity * PHASES.length];
+        counters = new long[capacity * COUNTERS.length];
+        ticks = new int[capacity];
+        current = new long[PHASES.length];
+        currentCounts = new long[COUNTERS.length];
+        classSlots = new HashMap<>();
+        overlayText = new StringBuilder(512);
+        meter = new AllocationMeter();
+        growClassSlots(32);
+    }
+
+    /**
+     * @return A timestamp to pass to {@link #stop(Phase, long)}, or 0 if the profiler is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(final Phase phase, final long start) {
+        if (enabled && start != 0)
+            current[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Adds the time since {@code start} to the given entity class.
+     */
+    public void stop(final Class<?> entityClass, final long start) {
+        if (enabled && start != 0) {
+            final long elapsed = System.nanoTime() - start;
+            final int slot = slotOf(entityClass);
+            classFrame[slot] += elapsed;
+            classTotal[slot] += elapsed;
+            classCalls[slot]++;
+        }
+    }
+
+    /**
+     * @return A value to pass to {@link #stopAllocation(Counter, long)}, or 0 if the profiler is disabled or the
+     * allocations can not be read.
+     */
+    public long startAllocation() {
+        return enabled ? meter.allocatedBytes() : 0;
+    }
+
+    /**
+     * Adds the bytes allocated by the current thread since {@code start} to a counter of the current frame.
+     */
+    public void stopAllocation(final Counter counter, final long start) {
+        if (enabled && start != 0)
+            currentCounts[counter.ordinal()] += meter.bytesSince(start);
+    }
+
+    /**
+     * Adds the given amount to a counter of the current frame.
+     */
+    public void count(final Counter counter, final int amount) {
+        if (enabled)
+            currentCounts[counter.ordinal()] += amount;
+    }
+
+    /**
+     * Marks the end of one simulated frame.
+     */
+    public void tick() {
+        if (enabled)
+            currentTicks++;
+    }
+
+    /**
+     * Stores the timings gathered since the previous commit as one frame in the ring buffer.
+     */
+    public void commit() {
+        if (!enabled)
+            return;
+
+        meter.listen();
+        currentCounts[Counter.GC_PAUSES.ordinal()] += meter.takePauses();
+        currentCounts[Counter.GC_MILLIS.ordinal()] += meter.takePauseMillis();
+
+        System.arraycopy(current, 0, frames, head * PHASES.length, PHASES.length);
+        System.arraycopy(currentCounts, 0, counters, head * COUNTERS.length, COUNTERS.length);
+        ticks[head] = currentTicks;
+        Arrays.fill(current, 0);
+        Arrays.fill(currentCounts, 0);
+        currentTicks = 0;
+
+        System.arraycopy(classFrame, 0, classLast, 0, classFrame.length);
+        Arrays.fill(classFrame, 0);
+
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        frameCounter++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param framesAgo 0 for the latest committed frame.
+     * @return The time in nanoseconds the given phase took.
+     */
+    public long get(final int framesAgo, final Phase phase) {
+        return frames[index(framesAgo) * PHASES.length + phase.ordinal()];
+    }
+
+    public long get(final int framesAgo, final Counter counter) {
+        return counters[index(framesAgo) * COUNTERS.length + counter.ordinal()];
+    }
+
+    public int getTicks(final int framesAgo) {
+        return ticks[index(framesAgo)];
+    }
+
+    public long average(final Phase phase) {
+        if (size == 0)
+            return 0;
+
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += get(i, phase);
+
+        return sum / size;
+    }
+
+    public long max(final Phase phase) {
+        long max = 0;
+        for (int i = 0; i < size; i++)
+            max = Math.max(max, get(i, phase));
+
+        return max;
+    }
+
+    /**
+     * @return The average of the given counter per simulated frame, over the buffered frames.
+     */
+    public long averagePerTick(final Counter counter) {
+        long sum = 0, ticked = 0;
+        for (int i = 0; i < size; i++) {
+            sum += get(i, counter);
+            ticked += getTicks(i);
+        }
+
+        return ticked == 0 ? 0 : sum / ticked;
+    }
+
+    public long max(final Counter counter) {
+        long max = 0;
+        for (int i = 0; i < size; i++)
+            max = Math.max(max, get(i, counter));
+
+        return max;
+    }
+
+    /**
+     * Stops listening for garbage collections.
+     */
+    public void dispose() {
+        meter.stopListening();
+    }
+
+    public void clear() {
+        Arrays.fill(frames, 0);
+        Arrays.fill(counters, 0);
+        Arrays.fill(ticks, 0);
+        Arrays.fill(current, 0);
+        Arrays.fill(currentCounts, 0);
+        Arrays.fill(classFrame, 0);
+        Arrays.fill(classLast, 0);
+        Arrays.fill(classTotal, 0);
+        Arrays.fill(classCalls, 0);
+        head = size = currentTicks = 0;
+        frameCounter = 0;
+    }
+
+    /**
+     * Draws the average and worst time of every phase, followed by the most expensive entity classes of the latest
+     * frame. The HUD camera is expected to be active.
+     */
+    public void render(final SpriteBatch batch, final BitmapFont font) {
+        final StringBuilder text = overlayText;
+        text.setLength(0);
+
+        for (final Phase phase : PHASES) {
+            text.append(phase.name()).append(": ");
+            appendMillis(text, average(phase));
+            text.append(" / ");
+            appendMillis(text, max(phase));
+            text.append(" ms\n");
+        }
+        text.append("Ticks: ").append(size > 0 ? getTicks(0) : 0).append('\n');
+        for (final Counter counter : COUNTERS)
+            text.append(counter.name()).append(": ").append(size > 0 ? get(0, counter) : 0).append('\n');
+
+        Arrays.fill(picked, false);
+        for (int n = 0; n < OVERLAY_CLASSES; n++) {
+            int best = -1;
+            for (int slot = 0; slot < classSlots.size(); slot++) {
+                if (!picked[slot] && classLast[slot] > 0 && (best == -1 || classLast[slot] > classLast[best]))
+                    best = slot;
+            }
+            if (best == -1)
+                break;
+
+            picked[best] = true;
+            text.append(labels[best]).append(": ");
+            appendMillis(text, classLast[best]);
+            text.append(" ms\n");
+        }
+
+        font.draw(batch, text, 10, 40);
+    }
+
+    /**
+     * Writes the buffered frames, oldest first, with one column per phase in nanoseconds followed by one per counter.
+     */
+    public void exportFrames(final File dest) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(dest))) {
+            out.print("frame,ticks");
+            for (final Phase phase : PHASES)
+                out.print("," + phase.name().toLowerCase());
+            for (final Counter counter : COUNTERS)
+                out.print("," + counter.name().toLowerCase());
+            out.println();
+
+            for (int framesAgo = size - 1; framesAgo >= 0; framesAgo--) {
+                out.print((frameCounter - framesAgo - 1) + "," + getTicks(framesAgo));
+                for (final Phase phase : PHASES)
+                    out.print("," + get(framesAgo, phase));
+                for (final Counter counter : COUNTERS)
+                    out.print("," + get(framesAgo, counter));
+                out.println();
+            }
+        }
+    }
+
+    /**
+     * Writes the accumulated update time of every entity class that have been profiled.
+     */
+    public void exportEntities(final File dest) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(dest))) {
+            out.println("class,total,calls,average");
+
+            for (int slot = 0; slot < classSlots.size(); slot++) {
+                final String name = classes[slot].getName();
+                out.println(name + "," + classTotal[slot] + "," + classCalls[slot] + "," + (classTotal[slot] / Math.max(1, classCalls[slot])));
+            }
+        }
+    }
+
+    private int index(final int framesAgo) {
+        if (framesAgo < 0 || framesAgo >= size)
+            throw new IndexOutOfBoundsException("No frame recorded " + framesAgo + " frames ago.");
+
+        return (head - 1 - framesAgo + capacity) % capacity;
+    }
+
+    private int slotOf(final Class<?> entityClass) {
+        final Integer slot = classSlots.get(entityClass);
+        if (slot != null)
+            return slot;
+
+        final int newSlot = classSlots.size();
+        if (newSlot == classes.length)
+            growClassSlots(classes.length * 2);
+
+        final String name = entityClass.getName();
+        classes[newSlot] = entityClass;
+        labels[newSlot] = name.substring(name.lastIndexOf('.') + 1);
+        classSlots.put(entityClass, newSlot);
+        return newSlot;
+    }
+
+    private void growClassSlots(final int length) {
+        classes = classes == null ? new Class<?>[length] : Arrays.copyOf(classes, length);
+        labels = labels == null ? new String[length] : Arrays.copyOf(labels, length);
+        classFrame = classFrame == null ? new long[length] : Arrays.copyOf(classFrame, length);
+        classLast = classLast == null ? new long[length] : Arrays.copyOf(classLast, length);
+        classTotal = classTotal == null ? new long[length] : Arrays.copyOf(classTotal, length);
+        classCalls = classCalls == null ? new long[length] : Arrays.copyOf(classCalls, length);
+        picked = new boolean[length];
+    }
+
+    private static void appendMillis(final StringBuilder text, final long nanos) {
+        final long hundredths = nanos / 10_000;
+        text.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10)
+            text.append('0');
+        text.append(hundredths % 100);
+    }
+}
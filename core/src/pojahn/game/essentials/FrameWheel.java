@@ -0,0 +1,191 @@
+package pojahn.game.essentials;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that hands out objects once a given amount of frames have passed.
+ * <p>
+ * The first wheel has one slot per frame for the upcoming 256 frames. The second wheel has one slot per 256 frames
+ * for the upcoming 16384 frames, and its entries are moved down to the first wheel when their slot comes up. Objects
+ * further away than that wait in an overflow bucket. Advancing a frame therefore only touches the objects that are due,
+ * and nothing at all when the wheel is empty.
+ * <p>
+ * Objects that are due the same frame are handed out in the order they were scheduled.
+ */
+public class FrameWheel<T> {
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int OUTER_SLOTS = 64;
+    private static final int OUTER_MASK = OUTER_SLOTS - 1;
+    private static final long OUTER_SPAN = (long) SLOTS * OUTER_SLOTS;
+
+    private final Bucket[] inner, outer;
+    private final Bucket overflow;
+    private long frame, sequence;
+    private int size;
+
+    public FrameWheel() {
+        inner = new Bucket[SLOTS];
+        outer = new Bucket[OUTER_SLOTS];
+        overflow = new Bucket();
+
+        for (int i = 0; i < inner.length; i++)
+            inner[i] = new Bucket();
+        for (int i = 0; i < outer.length; i++)
+            outer[i] = new Bucket();
+    }
+
+    /**
+     * Schedules the given object to be handed out by the {@code framesDelay}:th call to {@link #advance(Consumer)}.
+     * A delay of zero is treated as one, meaning the next call.
+     */
+    public void schedule(final T obj, final int framesDelay) {
+        insert(obj, frame + Math.max(1, framesDelay), sequence++);
+        size++;
+    }
+
+    /**
+     * Steps one frame forward and passes every object that became due to the given handler. Objects scheduled by the
+     * handler are due a later frame at the earliest.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(final Consumer<? super T> handler) {
+        frame++;
+        if (size == 0)
+            return;
+
+        if ((frame & SLOT_MASK) == 0)
+            cascade();
+
+        final Bucket bucket = inner[(int) (frame & SLOT_MASK)];
+        if (bucket.size == 0)
+            return;
+
+        if (bucket.unordered)
+            bucket.sort();
+
+        final int due = bucket.size;
+        size -= due;
+        for (int i = 0; i < due; i++)
+            handler.accept((T) bucket.items[i]);
+
+        bucket.clear();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (final Bucket bucket : inner)
+            bucket.clear();
+        for (final Bucket bucket : outer)
+            bucket.clear();
+
+        overflow.clear();
+        size = 0;
+    }
+
+    private void insert(final Object obj, final long due, final long seq) {
+        final long distance = due - frame;
+
+        if (distance < SLOTS)
+            inner[(int) (due & SLOT_MASK)].add(obj, due, seq);
+        else if (distance < OUTER_SPAN)
+            outer[(int) ((due >> SLOT_BITS) & OUTER_MASK)].add(obj, due, seq);
+        else
+            overflow.add(obj, due, seq);
+    }
+
+    /**
+     * Moves the entries of the 256 frames that begin now from the outer wheel (and the overflow bucket) to the inner.
+     */
+    private void cascade() {
+        redistribute(outer[(int) ((frame >> SLOT_BITS) & OUTER_MASK)]);
+        if (overflow.size > 0)
+            redistribute(overflow);
+    }
+
+    private void redistribute(final Bucket bucket) {
+        final long limit = bucket == overflow ? frame + OUTER_SPAN : frame + SLOTS;
+
+        int kept = 0;
+        for (int i = 0; i < bucket.size; i++) {
+            final Object obj = bucket.items[i];
+            final long due = bucket.dues[i];
+            final long seq = bucket.seqs[i];
+
+            if (due < limit) {
+                insert(obj, due, seq);
+            } else {
+                bucket.items[kept] = obj;
+                bucket.dues[kept] = due;
+                bucket.seqs[kept] = seq;
+                kept++;
+            }
+        }
+        Arrays.fill(bucket.items, kept, bucket.size, null);
+        bucket.size = kept;
+    }
+
+    private static class Bucket {
+
+        Object[] items = new Object[4];
+        long[] dues = new long[4];
+        long[] seqs = new long[4];
+        int size;
+        boolean unordered;
+
+        void add(final Object obj, final long due, final long seq) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                dues = Arrays.copyOf(dues, size * 2);
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+
+            if (size > 0 && seqs[size - 1] > seq)
+                unordered = true;
+
+            items[size] = obj;
+            dues[size] = due;
+            seqs[size] = seq;
+            size++;
+        }
+
+        /**
+         * Insertion sort on the sequence numbers. Only entries moved down from the outer wheel are out of place.
+         */
+        void sort() {
+            for (int i = 1; i < size; i++) {
+                final Object obj = items[i];
+                final long due = dues[i];
+                final long seq = seqs[i];
+
+                int j = i - 1;
+                while (j >= 0 && seqs[j] > seq) {
+                    items[j + 1] = items[j];
+                    dues[j + 1] = dues[j];
+                    seqs[j + 1] = seqs[j];
+                    j--;
+                }
+                items[j + 1] = obj;
+                dues[j + 1] = due;
+                seqs[j + 1] = seq;
+            }
+            unordered = false;
+        }
+
+        void clear() {
+            Arrays.fill(items, 0, size, null);
+            size = 0;
+            unordered = false;
+        }
+    }
+}
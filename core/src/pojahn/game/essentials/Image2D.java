@@ -2,14 +2,86 @@ package pojahn.game.essentials;
 
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 import java.io.IOException;
 
 public class Image2D extends Texture {
 
-    private int[][] pixelData;
+    /**
+     * Stands in for the pixels of an image that has not been uploaded. The texture gets its size but no storage.
+     */
+    private static class Unloaded implements TextureData {
+
+        final int width, height;
+
+        Unloaded(final int width, final int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            throw new GdxRuntimeException("The image has not been uploaded.");
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(final int target) {
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public Format getFormat() {
+            return Format.RGBA8888;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return false;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return true;
+        }
+    }
+
+    private AlphaMask mask;
+    private TextureRegion region;
+    private FileHandle unloaded;
 
     public Image2D(final FileHandle file) {
         this(file, false);
@@ -21,6 +93,23 @@ public class Image2D extends Texture {
             createPixelData();
     }
 
+    /**
+     * Uploads an image that has already been decoded from the given file. The pixmap is disposed once uploaded.
+     */
+    Image2D(final FileHandle file, final Pixmap decoded) {
+        super(new FileTextureData(file, decoded, null, false));
+    }
+
+    /**
+     * Creates an image that is drawn through the given atlas region. Its own texture is only uploaded from the file the
+     * first time it is bound, in case something draws the image directly.
+     */
+    Image2D(final FileHandle file, final int width, final int height, final TextureRegion region) {
+        super(new Unloaded(width, height));
+        this.region = region;
+        unloaded = file;
+    }
+
     public Image2D(final Pixmap map) {
         this(map, false);
     }
@@ -31,41 +120,94 @@ public class Image2D extends Texture {
             createPixelData(map);
     }
 
+    /**
+     * Only the alpha channel is kept by the pixel data, so an opaque pixel reads as {@code 0xFFFFFFFF} whatever its
+     * color and a transparent one as 0. Tests on the alpha byte, such as {@code (getPixel(x, y) & 0xFF) == 0}, read the
+     * same as they did when the whole pixel was kept, except that partly transparent pixels read as fully opaque.
+     *
+     * @deprecated Use {@link #getMask()}, which doesn't pretend to know the color.
+     */
+    @Deprecated
     public int getPixel(final int x, final int y) {
-        return pixelData[x][y];
+        return mask.isOpaque(x, y) ? 0xFFFFFFFF : 0;
+    }
+
+    /**
+     * @return The opaque pixels of this image, or {@code null} if no pixel data has been created.
+     */
+    public AlphaMask getMask() {
+        return mask;
+    }
+
+    /**
+     * @return The copy of this image on a shared atlas page, or {@code null} if it was not packed. Drawing the region
+     * instead of this texture lets images on the same page share a draw call.
+     */
+    public TextureRegion getRegion() {
+        return region;
+    }
+
+    public void setRegion(final TextureRegion region) {
+        this.region = region;
     }
 
     public void clearData() {
-        pixelData = null;
+        mask = null;
     }
 
     public boolean isInvisible(final int x, final int y) {
-        return (pixelData[x][y] & 0x000000FF) == 0;
+        return !mask.isOpaque(x, y);
+    }
+
+    @Override
+    public void bind() {
+        upload();
+        super.bind();
+    }
+
+    @Override
+    public void bind(final int unit) {
+        upload();
+        super.bind(unit);
+    }
+
+    private void upload() {
+        if (unloaded != null) {
+            final FileHandle file = unloaded;
+            unloaded = null;
+            load(new FileTextureData(file, new Pixmap(file), null, false));
+        }
     }
 
     public void createPixelData() {
-        final FileTextureData td = (FileTextureData) getTextureData();
-        td.prepare();
+        final Pixmap map;
+        if (unloaded != null) {
+            map = new Pixmap(unloaded);
+        } else {
+            final FileTextureData td = (FileTextureData) getTextureData();
+            td.prepare();
+            map = td.consumePixmap();
+        }
 
-        final Pixmap map = td.consumePixmap();
         createPixelData(map);
         map.dispose();
     }
 
+    /**
+     * Creates the mask used for pixel perfect collision. Images with the same opaque pixels share one mask.
+     */
     public void createPixelData(final Pixmap img) {
-        pixelData = new int[img.getWidth()][img.getHeight()];
-
-        for (int x = 0; x < img.getWidth(); x++) {
-            for (int y = 0; y < img.getHeight(); y++) {
-                pixelData[x][y] = img.getPixel(x, y);
-            }
-        }
+        mask = AlphaMask.of(img);
     }
 
+    /**
+     * Lets every image use the pixel data of the first one.
+     *
+     * @deprecated Images with the same opaque pixels already share one mask.
+     */
+    @Deprecated
     public static void createOnePixelData(final Image2D[] arr) {
-        arr[0].clearData();
-        for (int i = 1; i < arr.length; i++)
-            arr[i].pixelData = arr[0].pixelData;
+        mergePixelData(arr);
     }
 
     public static Image2D[] loadAnimation(final FileHandle directory) throws IOException {
@@ -85,10 +227,15 @@ public class Image2D extends Texture {
         return images;
     }
 
+    /**
+     * Lets every image use the pixel data of the first one.
+     *
+     * @deprecated Images with the same opaque pixels already share one mask.
+     */
+    @Deprecated
     public static void mergePixelData(final Image2D... images) {
-        final int[][] first = images[0].pixelData;
         for (int i = 1; i < images.length; i++)
-            images[i].pixelData = first;
+            images[i].mask = images[0].mask;
     }
 
     public static Animation<Image2D> animation(final Image2D... images) {
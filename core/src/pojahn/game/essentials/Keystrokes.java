@@ -55,6 +55,43 @@ public class Keystrokes implements Serializable {
         return ks;
     }
 
+    /**
+     * Creates a new Keystrokes based on what buttons are currently held down. Buttons that only register on the frame
+     * they were pressed are left out.
+     */
+    public static Keystrokes held(final Controller con) {
+        final Keystrokes ks = new Keystrokes();
+        ks.down = Gdx.input.isKeyPressed(con.down);
+        ks.left = Gdx.input.isKeyPressed(con.left);
+        ks.right = Gdx.input.isKeyPressed(con.right);
+        ks.up = Gdx.input.isKeyPressed(con.up);
+        ks.jump = Gdx.input.isKeyPressed(con.jump);
+
+        return ks;
+    }
+
+    /**
+     * Combines the held buttons of {@code held} with the buttons that were just pressed in {@code pressed}.
+     */
+    public static Keystrokes withPresses(final Keystrokes held, final Keystrokes pressed) {
+        final Keystrokes pb = new Keystrokes();
+
+        pb.down = held.down;
+        pb.left = held.left;
+        pb.right = held.right;
+        pb.up = held.up;
+        pb.jump = held.jump;
+        pb.pause = pressed.pause;
+        pb.quit = pressed.quit;
+        pb.special1 = pressed.special1;
+        pb.special2 = pressed.special2;
+        pb.special3 = pressed.special3;
+        pb.suicide = pressed.suicide;
+        pb.restart = pressed.restart;
+
+        return pb;
+    }
+
     public static Keystrokes merge(final Keystrokes ks1, final Keystrokes ks2) {
         final Keystrokes pb = new Keystrokes();
 
@@ -5,21 +5,39 @@ import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.utils.Disposable;
 import pojahn.lang.IO;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ResourceManager {
 
+    private static final int ATLAS_PAGE_SIZE = 2048;
+    private static final int ATLAS_MAX_IMAGE_SIZE = 512;
+    private static final int ATLAS_PADDING = 2;
+
     private HashMap<String, Object> stuff;
+    private List<TextureAtlas> atlases;
 
     public ResourceManager() {
         stuff = new HashMap<>();
+        atlases = new ArrayList<>();
     }
 
     public void addAsset(final String key, final Object obj) {
@@ -111,11 +129,26 @@ public class ResourceManager {
      * - subdirectories consist of images only. These are loaded as Image2D.
      */
     public void loadContentFromDirectory(final FileHandle dir) throws IOException {
+        loadContentFromDirectory(dir, false);
+    }
+
+    /**
+     * Loads all the content from the given directory, following the rules of {@link #loadContentFromDirectory(FileHandle)}.
+     *
+     * @param atlas If true, the images and animation frames are decoded on worker threads and the ones no larger than
+     * {@value #ATLAS_MAX_IMAGE_SIZE} pixels are also packed into shared atlas pages, available through
+     * {@link Image2D#getRegion()}. Each image remains a texture of its own, so code that draws it directly still works,
+     * but a packed image only uploads its own texture the first time it is drawn that way.
+     */
+    public void loadContentFromDirectory(final FileHandle dir, final boolean atlas) throws IOException {
         if (!dir.exists())
             throw new NullPointerException("The given directory doesn't exist: " + dir.file().getAbsolutePath());
         if (!dir.isDirectory())
             throw new IllegalArgumentException("Argument must be a directory:" + dir.file().getAbsolutePath());
 
+        final List<FileHandle> packImages = new ArrayList<>();
+        final List<FileHandle> packAnimations = new ArrayList<>();
+
         for (final FileHandle content : dir.list()) {
             final String name = content.path().toLowerCase();
             if (name.contains("skip"))
@@ -124,6 +157,8 @@ public class ResourceManager {
             if (name.endsWith(".png")) {
                 if (name.contains("pix"))
                     loadPixmap(content);
+                else if (atlas)
+                    packImages.add(content);
                 else
                     loadImage(content);
             } else if (name.endsWith(".wav") || name.endsWith(".ogg") || name.endsWith(".mp3")) {
@@ -134,7 +169,10 @@ public class ResourceManager {
             } else if (name.endsWith(".tmx")) {
                 loadTiledMap(content);
             } else if (content.isDirectory()) {
-                loadAnimation(content);
+                if (atlas)
+                    packAnimations.add(content);
+                else
+                    loadAnimation(content);
             } else if (name.endsWith(".fnt")) {
                 loadFont(content);
             } else if (!name.contains("non-obj")) {
@@ -145,10 +183,15 @@ public class ResourceManager {
                 }
             }
         }
+
+        if (!packImages.isEmpty() || !packAnimations.isEmpty())
+            loadPacked(packImages, packAnimations);
     }
 
     public void disposeAll() {
         stuff.values().forEach(this::tryDispose);
+        atlases.forEach(this::tryDispose);
+        atlases.clear();
     }
 
     public void dispose(final String key) {
@@ -166,6 +209,102 @@ public class ResourceManager {
         return bu.toString();
     }
 
+    private void loadPacked(final List<FileHandle> imageFiles, final List<FileHandle> animationDirs) throws IOException {
+        final List<FileHandle> files = new ArrayList<>(imageFiles);
+        final List<FileHandle[]> animations = new ArrayList<>();
+        for (final FileHandle dir : animationDirs) {
+            final FileHandle[] frames = dir.list((fileName) -> fileName.toString().toLowerCase().endsWith(".png"));
+            animations.add(frames);
+            files.addAll(List.of(frames));
+        }
+
+        final ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        final List<Future<Pixmap>> decoded = new ArrayList<>(files.size());
+        final Image2D[] images = new Image2D[files.size()];
+        final PixmapPacker packer = new PixmapPacker(ATLAS_PAGE_SIZE, ATLAS_PAGE_SIZE, Format.RGBA8888, ATLAS_PADDING, false);
+        TextureAtlas atlas = null;
+        boolean loaded = false;
+
+        try {
+            for (final FileHandle file : files)
+                decoded.add(workers.submit(() -> new Pixmap(file)));
+
+            // Packed in file order rather than as the workers finish, so the layout of the pages is the same every run.
+            for (int i = 0; i < images.length; i++) {
+                final Pixmap pixmap = decoded.get(i).get();
+                if (pixmap.getWidth() <= ATLAS_MAX_IMAGE_SIZE && pixmap.getHeight() <= ATLAS_MAX_IMAGE_SIZE)
+                    packer.pack("image" + i, pixmap);
+            }
+
+            atlas = packer.generateTextureAtlas(TextureFilter.Nearest, TextureFilter.Nearest, false);
+
+            // The packed images are only uploaded to the atlas pages, the rest get textures of their own.
+            for (int i = 0; i < images.length; i++) {
+                final Pixmap pixmap = decoded.get(i).get();
+                final TextureRegion region = atlas.findRegion("image" + i);
+
+                images[i] = region != null ?
+                    new Image2D(files.get(i), pixmap.getWidth(), pixmap.getHeight(), region) :
+                    new Image2D(files.get(i), pixmap);
+            }
+
+            atlases.add(atlas);
+            loaded = true;
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new IOException("Failed to decode the images to pack.", e);
+        } finally {
+            workers.shutdownNow();
+            packer.dispose();
+            disposeDecoded(workers, decoded);
+
+            if (!loaded) {
+                for (final Image2D image : images) {
+                    if (image != null)
+                        image.dispose();
+                }
+                if (atlas != null)
+                    atlas.dispose();
+            }
+        }
+
+        int next = 0;
+        for (final FileHandle file : imageFiles)
+            stuff.put(file.name(), images[next++]);
+
+        for (int i = 0; i < animationDirs.size(); i++) {
+            final Image2D[] frames = new Image2D[animations.get(i).length];
+            for (int j = 0; j < frames.length; j++)
+                frames[j] = images[next++];
+
+            stuff.put(animationDirs.get(i).name(), frames);
+        }
+    }
+
+    /**
+     * Disposes the pixmaps that the workers decoded but that were not uploaded, which are all of them if the loading
+     * failed. Decoding can't be interrupted, so the workers that are still at it are waited for.
+     */
+    private static void disposeDecoded(final ExecutorService workers, final List<Future<Pixmap>> decoded) {
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (final Future<Pixmap> future : decoded) {
+            if (!future.isDone() || future.isCancelled())
+                continue;
+
+            try {
+                final Pixmap pixmap = future.get();
+                if (!pixmap.isDisposed())
+                    pixmap.dispose();
+            } catch (final InterruptedException | ExecutionException e) {
+                // Nothing was decoded.
+            }
+        }
+    }
+
     private void tryDispose(final Object obj) {
         try {
             if (obj instanceof Disposable) {
@@ -77,6 +77,11 @@ public class Utils {
                 this.setIdentifier("WRAPPER" + MathUtils.random(0, 10000));
             }
 
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 super.render(batch);
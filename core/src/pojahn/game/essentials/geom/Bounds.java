@@ -9,6 +9,7 @@ public class Bounds {
     public final Vector2 pos;
     public final Size size;
     public float rotation;
+    private float trigRotation, cos = 1, sin;
 
     public Bounds() {
         pos = new Vector2();
@@ -16,7 +17,36 @@ public class Bounds {
     }
 
     public Vector2 center() {
-        return new Vector2(pos.x + size.width / 2, pos.y + size.height / 2);
+        return center(new Vector2());
+    }
+
+    /**
+     * Stores the center in the given vector rather than allocating a new one.
+     *
+     * @return The given vector.
+     */
+    public Vector2 center(final Vector2 dest) {
+        return dest.set(pos.x + size.width / 2, pos.y + size.height / 2);
+    }
+
+    /**
+     * @return The cosine of the rotation, which is only recomputed after the rotation has changed.
+     */
+    public float cos() {
+        if (rotation != trigRotation)
+            updateTrig();
+
+        return cos;
+    }
+
+    /**
+     * @return The sine of the rotation, which is only recomputed after the rotation has changed.
+     */
+    public float sin() {
+        if (rotation != trigRotation)
+            updateTrig();
+
+        return sin;
     }
 
     public void set(final Bounds bounds) {
@@ -27,25 +57,49 @@ public class Bounds {
     }
 
     public Rectangle toRectangle() {
-        return new Rectangle(pos.x, pos.y, size.width, size.height);
+        return toRectangle(new Rectangle());
+    }
+
+    /**
+     * Stores the bounds in the given rectangle rather than allocating a new one.
+     *
+     * @return The given rectangle.
+     */
+    public Rectangle toRectangle(final Rectangle dest) {
+        return dest.set(pos.x, pos.y, size.width, size.height);
     }
 
     public Circle toCircle() {
+        return toCircle(new Circle());
+    }
+
+    /**
+     * Stores the bounds in the given circle rather than allocating a new one.
+     *
+     * @return The given circle.
+     */
+    public Circle toCircle(final Circle dest) {
+        dest.set(pos.x + size.width / 2, pos.y + size.height / 2, radius());
+        return dest;
+    }
+
+    /**
+     * @return Half the width, given that the bounds are a square.
+     */
+    public float radius() {
         if (size.width != size.height)
             throw new RuntimeException("Aborting toCircle because the outcome would be an oval.");
 
-        return new Circle(center(), size.width / 2);
+        return size.width / 2;
     }
 
     public void alignAbove(final Bounds bounds) {
-        final Vector2 center = bounds.center();
-        pos.x = center.x - (size.width / 2);
+        pos.x = bounds.pos.x + bounds.size.width / 2 - (size.width / 2);
         pos.y = bounds.pos.y - size.height;
     }
 
     public void alignBelow(final Bounds bounds) {
-        final Vector2 center = bounds.center();
-        pos.x = center.x - (size.width / 2);
+        pos.x = bounds.pos.x + bounds.size.width / 2 - (size.width / 2);
         pos.y = bounds.pos.y + bounds.size.height;
     }
 
@@ -58,8 +112,14 @@ public class Bounds {
     }
 
     public void center(final Bounds bounds) {
-        final Vector2 center = bounds.center();
-        pos.x = center.x - (size.width / 2);
-        pos.y = center.y - (size.height / 2);
+        pos.x = bounds.pos.x + bounds.size.width / 2 - (size.width / 2);
+        pos.y = bounds.pos.y + bounds.size.height / 2 - (size.height / 2);
+    }
+
+    private void updateTrig() {
+        final float radians = (float) Math.toRadians(rotation);
+        cos = (float) Math.cos(radians);
+        sin = (float) Math.sin(radians);
+        trigRotation = rotation;
     }
-}
\ No newline at end of file
+}
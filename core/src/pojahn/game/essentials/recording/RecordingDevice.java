@@ -45,7 +45,7 @@ public class RecordingDevice {
     }
 
     public void load(final List<KeySession> recordEntries) {
-        this.recordEntries = recordEntries;
+        this.recordEntries = new ArrayList<>(recordEntries);
     }
 
     public void clear() {
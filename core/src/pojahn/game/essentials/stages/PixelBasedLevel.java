@@ -3,71 +3,525 @@ package pojahn.game.essentials.stages;
 import com.badlogic.gdx.graphics.Pixmap;
 import pojahn.game.core.Level;
 
-import java.util.AbstractMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * A level whose terrain is read from an image, one tile per pixel.
+ * <p>
+ * The terrain is stored as one bit-plane each for solid, goal, lethal and custom pixels, 64 pixels to a word. Every
+ * plane is kept both row-major and column-major, so a run of pixels in either direction is scanned a word at a time.
+ * Only maps that use the custom tiles have a custom plane. The code of each custom pixel, indexing {@link #CODE_TILES},
+ * is kept in cells of 64x64 pixels, and only the cells that hold a custom pixel have one.
+ * <p>
+ * The solid pixels are also kept as runs, the first and the past-the-end pixel of each, per row and per column. The
+ * sweeps use them to find the nearest solid pixel along a line with a binary search instead of testing every step.
+ */
 public abstract class PixelBasedLevel extends Level {
 
-    private static final Map<Integer, Byte> COLOR_BYTE_MAP = Map.ofEntries(
-        new AbstractMap.SimpleEntry<>(0x7d7d7dff, (byte) 0),
-        new AbstractMap.SimpleEntry<>(0x5a5a5aff, (byte) 1),
-        new AbstractMap.SimpleEntry<>(0xff0000ff, (byte) 2),
-        new AbstractMap.SimpleEntry<>(0xffff00ff, (byte) 3),
-        new AbstractMap.SimpleEntry<>(0x00ff00ff, (byte) 4),
-        new AbstractMap.SimpleEntry<>(0x00dc00ff, (byte) 5),
-        new AbstractMap.SimpleEntry<>(0x00be00ff, (byte) 6),
-        new AbstractMap.SimpleEntry<>(0x00a000ff, (byte) 7),
-        new AbstractMap.SimpleEntry<>(0x008200ff, (byte) 8),
-        new AbstractMap.SimpleEntry<>(0x006400ff, (byte) 9),
-        new AbstractMap.SimpleEntry<>(0x004600ff, (byte) 10),
-        new AbstractMap.SimpleEntry<>(0x002800ff, (byte) 11),
-        new AbstractMap.SimpleEntry<>(0x000a00ff, (byte) 12),
-        new AbstractMap.SimpleEntry<>(0x000000ff, (byte) 13));
-
-    private static final Map<Byte, Tile> BYTE_TILE_MAP = Map.ofEntries(
-        new AbstractMap.SimpleEntry<>((byte) 0, Tile.HOLLOW),
-        new AbstractMap.SimpleEntry<>((byte) 1, Tile.SOLID),
-        new AbstractMap.SimpleEntry<>((byte) 2, Tile.GOAL),
-        new AbstractMap.SimpleEntry<>((byte) 3, Tile.LETHAL),
-        new AbstractMap.SimpleEntry<>((byte) 4, Tile.CUSTOM_1),
-        new AbstractMap.SimpleEntry<>((byte) 5, Tile.CUSTOM_2),
-        new AbstractMap.SimpleEntry<>((byte) 6, Tile.CUSTOM_3),
-        new AbstractMap.SimpleEntry<>((byte) 7, Tile.CUSTOM_4),
-        new AbstractMap.SimpleEntry<>((byte) 8, Tile.CUSTOM_5),
-        new AbstractMap.SimpleEntry<>((byte) 9, Tile.CUSTOM_6),
-        new AbstractMap.SimpleEntry<>((byte) 10, Tile.CUSTOM_7),
-        new AbstractMap.SimpleEntry<>((byte) 11, Tile.CUSTOM_8),
-        new AbstractMap.SimpleEntry<>((byte) 12, Tile.CUSTOM_9),
-        new AbstractMap.SimpleEntry<>((byte) 13, Tile.CUSTOM_10));
-
-    private byte[][] stageData;
+    private static final byte HOLLOW = 0, SOLID = 1, GOAL = 2, LETHAL = 3, CUSTOM_1 = 4;
+    private static final int SOLID_PLANE = 0, GOAL_PLANE = 1, LETHAL_PLANE = 2, CUSTOM_PLANE = 3, PLANES = 4;
+
+    private static final Tile[] CODE_TILES = {
+        Tile.HOLLOW,
+        Tile.SOLID,
+        Tile.GOAL,
+        Tile.LETHAL,
+        Tile.CUSTOM_1,
+        Tile.CUSTOM_2,
+        Tile.CUSTOM_3,
+        Tile.CUSTOM_4,
+        Tile.CUSTOM_5,
+        Tile.CUSTOM_6,
+        Tile.CUSTOM_7,
+        Tile.CUSTOM_8,
+        Tile.CUSTOM_9,
+        Tile.CUSTOM_10
+    };
+
+    private static final int[] CELL_SHIFTS = {9, 6, 3};
+    private static final int CODE_CELL_SHIFT = 6, CODE_CELL_MASK = (1 << CODE_CELL_SHIFT) - 1;
+    private static final int NONE_AFTER = Integer.MAX_VALUE, NONE_BEFORE = Integer.MIN_VALUE;
+
+    private int width, height, wordsPerRow, wordsPerColumn;
+    private long[][] rows, columns;
+    private long[][][] occupancy;
+    private int[] rowRuns, rowRunStarts, columnRuns, columnRunStarts;
+    private byte[][] codes;
+    private int codeCellsPerRow;
 
     protected PixelBasedLevel() {
     }
 
     public void createMap(final Pixmap map) {
-        stageData = new byte[map.getWidth()][map.getHeight()];
+        width = map.getWidth();
+        height = map.getHeight();
+        wordsPerRow = (width + 63) >>> 6;
+        wordsPerColumn = (height + 63) >>> 6;
+        rows = new long[PLANES][wordsPerRow * height];
+        columns = new long[PLANES][wordsPerColumn * width];
+
+        codeCellsPerRow = cellsPerRow(CODE_CELL_SHIFT);
+        codes = new byte[codeCellsPerRow * ((height + CODE_CELL_MASK) >>> CODE_CELL_SHIFT)][];
+        boolean custom = false;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final byte code = toCode(map.getPixel(x, y));
+
+                final int plane = code == SOLID ? SOLID_PLANE :
+                                  code == GOAL ? GOAL_PLANE :
+                                  code == LETHAL ? LETHAL_PLANE :
+                                  code >= CUSTOM_1 ? CUSTOM_PLANE : -1;
+                if (plane != -1) {
+                    rows[plane][y * wordsPerRow + (x >>> 6)] |= 1L << x;
+                    columns[plane][x * wordsPerColumn + (y >>> 6)] |= 1L << y;
+                }
+
+                if (code >= CUSTOM_1) {
+                    final int cell = codeCell(x, y);
+                    if (codes[cell] == null)
+                        codes[cell] = new byte[1 << (2 * CODE_CELL_SHIFT)];
 
-        for (int x = 0; x < map.getWidth(); x++) {
-            for (int y = 0; y < map.getHeight(); y++) {
-                stageData[x][y] = COLOR_BYTE_MAP.getOrDefault(map.getPixel(x, y), (byte) 0);
+                    codes[cell][codeIndex(x, y)] = code;
+                    custom = true;
+                }
             }
         }
+        if (!custom) {
+            codes = null;
+            rows[CUSTOM_PLANE] = columns[CUSTOM_PLANE] = null;
+        }
+        buildOccupancy();
+        rowRunStarts = new int[height + 1];
+        rowRuns = runsOf(rows[SOLID_PLANE], height, wordsPerRow, rowRunStarts);
+        columnRunStarts = new int[width + 1];
+        columnRuns = runsOf(columns[SOLID_PLANE], width, wordsPerColumn, columnRunStarts);
+        terrainChanged();
         map.dispose();
     }
 
     @Override
     protected Tile tileAtInternal(final int x, final int y) {
-        return BYTE_TILE_MAP.get(stageData[x][y]);
+        final int word = y * wordsPerRow + (x >>> 6);
+        final long bit = 1L << x;
+
+        if ((rows[SOLID_PLANE][word] & bit) != 0)
+            return Tile.SOLID;
+        if ((rows[LETHAL_PLANE][word] & bit) != 0)
+            return Tile.LETHAL;
+        if ((rows[GOAL_PLANE][word] & bit) != 0)
+            return Tile.GOAL;
+        if (codes != null && (rows[CUSTOM_PLANE][word] & bit) != 0)
+            return CODE_TILES[code(x, y)];
+
+        return Tile.HOLLOW;
+    }
+
+    /**
+     * Scans the rectangle row by row, or column by column if it is taller than it is wide.
+     */
+    @Override
+    protected int tilesInInternal(final int x, final int y, final int width, final int height) {
+        int tiles = 0;
+        if (width >= height) {
+            for (int row = y; row < y + height; row++)
+                tiles |= scan(rows, row * wordsPerRow, x, x + width, row, true);
+        } else {
+            for (int column = x; column < x + width; column++)
+                tiles |= scan(columns, column * wordsPerColumn, y, y + height, column, false);
+        }
+        return tiles;
+    }
+
+    /**
+     * Reads the solid bit-plane directly unless a tile layer could be covering the given pixel.
+     */
+    @Override
+    public boolean isSolid(final int x, final int y) {
+        if (hasTileLayers(x, y, 1, 1))
+            return super.isSolid(x, y);
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        return (rows[SOLID_PLANE][y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * The two rows are answered with one lookup each, since the nearest solid pixel ahead on a row tells at which step
+     * the row first touches it. The two columns are tested step by step, but only up to that step.
+     */
+    @Override
+    public int sweepX(final int x, final int y, final int width, final int height, final int distance) {
+        final int steps = Math.abs(distance);
+        final int step = distance < 0 ? -1 : 1;
+        final int left = Math.min(x, x + distance);
+
+        if (steps == 0 || width <= 0 || height <= 0 || hasTileLayers(left, y, steps + width + 1, height + 1))
+            return super.sweepX(x, y, width, height, distance);
+
+        final int hit = Math.min(rowHit(y, x, width, distance), rowHit(y + height, x, width, distance));
+
+        for (int i = 1; i < hit && i <= steps; i++) {
+            final int pos = x + i * step;
+            if (solidInColumn(pos, y, y + height) || solidInColumn(pos + width, y, y + height))
+                return i - 1;
+        }
+        return Math.min(hit - 1, steps);
+    }
+
+    /**
+     * The same as {@link #sweepX(int, int, int, int, int)} with the roles of the rows and columns swapped.
+     */
+    @Override
+    public int sweepY(final int x, final int y, final int width, final int height, final int distance) {
+        final int steps = Math.abs(distance);
+        final int step = distance < 0 ? -1 : 1;
+        final int top = Math.min(y, y + distance);
+
+        if (steps == 0 || width <= 0 || height <= 0 || hasTileLayers(x, top, width + 1, steps + height + 1))
+            return super.sweepY(x, y, width, height, distance);
+
+        final int hit = Math.min(columnHit(x, y, height, distance), columnHit(x + width, y, height, distance));
+
+        for (int i = 1; i < hit && i <= steps; i++) {
+            final int pos = y + i * step;
+            if (solidInRow(pos, x, x + width) || solidInRow(pos + height, x, x + width))
+                return i - 1;
+        }
+        return Math.min(hit - 1, steps);
+    }
+
+    /**
+     * Finds where the outline touches solid with {@link #sweepX(int, int, int, int, int)}. Before that column the
+     * outline is free, so the outline one pixel down only adds its two rows and the pixel right of its old bottom row,
+     * and the outline two pixels down in turn adds the same on top of that one.
+     */
+    @Override
+    public int walkX(final int x, final int y, final int width, final int height, final int distance) {
+        final int steps = Math.abs(distance);
+        final int step = distance < 0 ? -1 : 1;
+        final int left = Math.min(x, x + distance);
+
+        if (width <= 0 || height <= 0 || hasTileLayers(left, y, steps + width + 1, height + 3))
+            return super.walkX(x, y, width, height, distance);
+        if (Tile.SOLID.in(tilesOnOutline(x, y, width, height)))
+            return 0;
+
+        final int blocked = steps == 0 ? 1 : sweepX(x, y, width, height, distance) + 1;
+
+        for (int i = 0; i < blocked; i++) {
+            final int column = x + i * step;
+            final int end = column + width;
+
+            final boolean below1 = solidInRow(y + 1, column, end) || solidInRow(y + height + 1, column, end) ||
+                solidInRow(y + height, end, end + 1);
+            if (!below1 && (solidInRow(y + 2, column, end) || solidInRow(y + height + 2, column, end) ||
+                solidInRow(y + height + 1, end, end + 1)))
+                return i;
+        }
+        return blocked;
+    }
+
+    @Override
+    protected int emptyCell(final Tile tile, final int x, final int y) {
+        final int plane = planeOf(tile);
+        if (plane == -1 || occupancy[plane] == null || x < 0 || y < 0 || x >= width || y >= height)
+            return 0;
+
+        for (int level = 0; level < CELL_SHIFTS.length; level++) {
+            final int shift = CELL_SHIFTS[level];
+            final int cell = (y >>> shift) * cellsPerRow(shift) + (x >>> shift);
+
+            if ((occupancy[plane][level][cell >>> 6] & (1L << cell)) == 0)
+                return 1 << shift;
+        }
+        return 0;
     }
 
     @Override
     public int getWidth() {
-        return stageData.length;
+        return width;
     }
 
     @Override
     public int getHeight() {
-        return stageData[0].length;
+        return height;
+    }
+
+    /**
+     * Finds the tiles of the pixels {@code from} to {@code to} (exclusive) on the line that starts at word
+     * {@code base} of the given planes.
+     */
+    private int scan(final long[][] planes, final int base, final int from, final int to, final int line, final boolean row) {
+        final long[] solid = planes[SOLID_PLANE], goal = planes[GOAL_PLANE], lethal = planes[LETHAL_PLANE], custom = planes[CUSTOM_PLANE];
+        final int first = from >>> 6, last = (to - 1) >>> 6;
+        int tiles = 0;
+
+        for (int word = first; word <= last; word++) {
+            long mask = -1L;
+            if (word == first)
+                mask &= -1L << from;
+            if (word == last)
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+
+            final long s = solid[base + word] & mask;
+            final long g = goal[base + word] & mask;
+            final long l = lethal[base + word] & mask;
+            long c = custom == null ? 0 : custom[base + word] & mask;
+
+            if (s != 0)
+                tiles |= Tile.SOLID.bit();
+            if (g != 0)
+                tiles |= Tile.GOAL.bit();
+            if (l != 0)
+                tiles |= Tile.LETHAL.bit();
+            if ((s | g | l | c) != mask)
+                tiles |= Tile.HOLLOW.bit();
+
+            for (; c != 0; c &= c - 1) {
+                final int pos = (word << 6) + Long.numberOfTrailingZeros(c);
+                tiles |= CODE_TILES[row ? code(pos, line) : code(line, pos)].bit();
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Builds one bitset per plane and cell size, 512, 64 and 8 pixels, where a set bit means that the cell holds at
+     * least one pixel of the plane.
+     */
+    private void buildOccupancy() {
+        occupancy = new long[PLANES][][];
+
+        for (int plane = 0; plane < PLANES; plane++) {
+            final long[] bits = rows[plane];
+            if (bits == null)
+                continue;
+
+            final long[][] levels = new long[CELL_SHIFTS.length][];
+            for (int level = 0; level < CELL_SHIFTS.length; level++) {
+                final int shift = CELL_SHIFTS[level];
+                levels[level] = new long[(cellsPerRow(shift) * ((height + (1 << shift) - 1) >>> shift) + 63) >>> 6];
+            }
+
+            for (int y = 0; y < height; y++) {
+                for (int word = 0; word < wordsPerRow; word++) {
+                    final long value = bits[y * wordsPerRow + word];
+                    if (value == 0)
+                        continue;
+
+                    for (int b = 0; b < 64; b += 8) {
+                        if ((value >>> b & 0xFF) == 0)
+                            continue;
+
+                        final int x = (word << 6) + b;
+                        for (int level = 0; level < CELL_SHIFTS.length; level++) {
+                            final int shift = CELL_SHIFTS[level];
+                            final int cell = (y >>> shift) * cellsPerRow(shift) + (x >>> shift);
+                            levels[level][cell >>> 6] |= 1L << cell;
+                        }
+                    }
+                }
+            }
+            occupancy[plane] = levels;
+        }
+    }
+
+    /**
+     * @return The first step at which the span of {@code length} pixels from {@code pos} on the given row, moving
+     * along the row by the sign of {@code distance}, covers a solid pixel, or {@link #NONE_AFTER} if it never does.
+     */
+    private int rowHit(final int row, final int pos, final int length, final int distance) {
+        if (distance > 0) {
+            final int solid = nextIn(rowRuns, rowRunStarts, height, row, pos + 1);
+            return solid == NONE_AFTER ? NONE_AFTER : Math.max(1, solid - pos - length + 1);
+        } else {
+            final int solid = previousIn(rowRuns, rowRunStarts, height, row, pos + length - 2);
+            return solid == NONE_BEFORE ? NONE_AFTER : Math.max(1, pos - solid);
+        }
+    }
+
+    /**
+     * The same as {@link #rowHit(int, int, int, int)} for a column.
+     */
+    private int columnHit(final int column, final int pos, final int length, final int distance) {
+        if (distance > 0) {
+            final int solid = nextIn(columnRuns, columnRunStarts, width, column, pos + 1);
+            return solid == NONE_AFTER ? NONE_AFTER : Math.max(1, solid - pos - length + 1);
+        } else {
+            final int solid = previousIn(columnRuns, columnRunStarts, width, column, pos + length - 2);
+            return solid == NONE_BEFORE ? NONE_AFTER : Math.max(1, pos - solid);
+        }
+    }
+
+    /**
+     * @return True if any of the pixels {@code from} to {@code to} (exclusive) on the given row is solid.
+     */
+    private boolean solidInRow(final int row, final int from, final int to) {
+        return from < to && nextIn(rowRuns, rowRunStarts, height, row, from) < to;
+    }
+
+    /**
+     * The same as {@link #solidInRow(int, int, int)} for a column.
+     */
+    private boolean solidInColumn(final int column, final int from, final int to) {
+        return from < to && nextIn(columnRuns, columnRunStarts, width, column, from) < to;
+    }
+
+    /**
+     * @return The code of the given custom pixel.
+     */
+    private byte code(final int x, final int y) {
+        return codes[codeCell(x, y)][codeIndex(x, y)];
+    }
+
+    private int codeCell(final int x, final int y) {
+        return (y >>> CODE_CELL_SHIFT) * codeCellsPerRow + (x >>> CODE_CELL_SHIFT);
+    }
+
+    private static int codeIndex(final int x, final int y) {
+        return (y & CODE_CELL_MASK) << CODE_CELL_SHIFT | x & CODE_CELL_MASK;
+    }
+
+    private int cellsPerRow(final int shift) {
+        return (width + (1 << shift) - 1) >>> shift;
+    }
+
+    /**
+     * Lists the runs of set bits on every line of the given plane as pairs of their first and past-the-end pixel. The
+     * pairs of line {@code n} are found from index {@code starts[n]} up to {@code starts[n + 1]}.
+     */
+    private static int[] runsOf(final long[] plane, final int lines, final int wordsPerLine, final int[] starts) {
+        int[] runs = new int[64];
+        int size = 0;
+
+        for (int line = 0; line < lines; line++) {
+            starts[line] = size;
+            final int base = line * wordsPerLine;
+            int start = -1;
+
+            for (int word = 0; word < wordsPerLine; word++) {
+                final long value = plane[base + word];
+                int bit = 0;
+
+                while (bit < 64) {
+                    final long edges = (start < 0 ? value : ~value) & (-1L << bit);
+                    if (edges == 0)
+                        break;
+
+                    bit = Long.numberOfTrailingZeros(edges);
+                    if (start < 0) {
+                        start = (word << 6) + bit;
+                    } else {
+                        if (size + 2 > runs.length)
+                            runs = Arrays.copyOf(runs, runs.length * 2);
+                        runs[size++] = start;
+                        runs[size++] = (word << 6) + bit;
+                        start = -1;
+                    }
+                }
+            }
+            if (start >= 0) {
+                if (size + 2 > runs.length)
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                runs[size++] = start;
+                runs[size++] = wordsPerLine << 6;
+            }
+        }
+        starts[lines] = size;
+
+        return Arrays.copyOf(runs, size);
+    }
+
+    /**
+     * @return The first pixel from {@code from} and on that is covered by one of the runs of the given line, or
+     * {@link #NONE_AFTER} if there is none.
+     */
+    private static int nextIn(final int[] runs, final int[] starts, final int lines, final int line, final int from) {
+        if (line < 0 || line >= lines)
+            return NONE_AFTER;
+
+        final int end = starts[line + 1] >> 1;
+        int low = starts[line] >> 1, high = end;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (runs[2 * mid + 1] > from)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low == end ? NONE_AFTER : Math.max(runs[2 * low], from);
+    }
+
+    /**
+     * @return The last pixel up to and including {@code from} that is covered by one of the runs of the given line, or
+     * {@link #NONE_BEFORE} if there is none.
+     */
+    private static int previousIn(final int[] runs, final int[] starts, final int lines, final int line, final int from) {
+        if (line < 0 || line >= lines)
+            return NONE_BEFORE;
+
+        final int begin = starts[line] >> 1;
+        int low = begin, high = starts[line + 1] >> 1;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (runs[2 * mid] > from)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low == begin ? NONE_BEFORE : Math.min(runs[2 * low - 1] - 1, from);
+    }
+
+    private static int planeOf(final Tile tile) {
+        switch (tile) {
+            case SOLID:
+                return SOLID_PLANE;
+            case GOAL:
+                return GOAL_PLANE;
+            case LETHAL:
+                return LETHAL_PLANE;
+            case HOLLOW:
+                return -1;
+            default:
+                return CUSTOM_PLANE;
+        }
+    }
+
+    private static byte toCode(final int color) {
+        switch (color) {
+            case 0x7d7d7dff:
+                return HOLLOW;
+            case 0x5a5a5aff:
+                return SOLID;
+            case 0xff0000ff:
+                return GOAL;
+            case 0xffff00ff:
+                return LETHAL;
+            case 0x00ff00ff:
+                return 4;
+            case 0x00dc00ff:
+                return 5;
+            case 0x00be00ff:
+                return 6;
+            case 0x00a000ff:
+                return 7;
+            case 0x008200ff:
+                return 8;
+            case 0x006400ff:
+                return 9;
+            case 0x004600ff:
+                return 10;
+            case 0x002800ff:
+                return 11;
+            case 0x000a00ff:
+                return 12;
+            case 0x000000ff:
+                return 13;
+            default:
+                return HOLLOW;
+        }
     }
 }
@@ -2,37 +2,51 @@ package pojahn.game.essentials.stages;
 
 
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.TextureData;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import pojahn.game.core.BaseLogic;
 import pojahn.game.core.Entity;
 import pojahn.game.core.Level;
 import pojahn.game.entities.TmxEntity;
-import pojahn.game.essentials.Image2D;
 import pojahn.game.essentials.geom.Size;
 import pojahn.game.events.Event;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * A level built from the first layer of a Tiled map, where the opaque pixels of the tiles are solid.
+ * <p>
+ * The alpha channel of every tile is compiled into a bitmask when the map is parsed, one bit per pixel, and masks are
+ * looked up by tile id. Tiles that were not part of the map's tile sets, such as tiles created at runtime or taken from
+ * another map, may share ids with each other or with the map's tiles. Their masks are compiled the first time they are
+ * queried and kept per tile instance.
+ */
 public abstract class TileBasedLevel extends Level {
 
     private TiledMap map;
-    private int tilesX, tilesY, tileWidth, tileHeight;
+    private int tilesX, tilesY, tileWidth, tileHeight, wordsPerTile;
     private TiledMapTileLayer layer;
     private Map<Integer, PositionedCell> orgTiles;
-    private Image2D tileSet;
+    private long[][] masks;
+    private TiledMapTile[] maskTiles;
+    private Map<TiledMapTile, long[]> foreignMasks;
 
     protected TileBasedLevel() {
         orgTiles = new HashMap<>();
+        foreignMasks = new IdentityHashMap<>();
     }
 
     private void parse(final TiledMap map) {
@@ -43,7 +57,11 @@ public abstract class TileBasedLevel extends Level {
         tilesY = props.get("height", Integer.class);
         tileWidth = props.get("tilewidth", Integer.class);
         tileHeight = props.get("tileheight", Integer.class);
-        encode();
+        wordsPerTile = (tileWidth * tileHeight + 63) >>> 6;
+        masks = new long[0][];
+        maskTiles = new TiledMapTile[0];
+        foreignMasks.clear();
+        compileMasks();
     }
 
     @Override
@@ -62,16 +80,19 @@ public abstract class TileBasedLevel extends Level {
         final int tileY = y / tileHeight;
 
         final Cell cell = layer.getCell(tileX, tileY);
-        if (cell != null) {
-            final TextureRegion region = cell.getTile().getTextureRegion();
-            final int regX = region.getRegionX();
-            final int regY = region.getRegionY() - tileHeight;
-            final int relX = x % tileWidth;
-            final int relY = y % tileHeight;
-
-            return (tileSet.getPixel(regX + relX, regY + relY) & 0x000000FF) > 0 ? Tile.SOLID : Tile.HOLLOW;
-        } else
+        if (cell == null)
             return Tile.HOLLOW;
+
+        final TiledMapTile tile = cell.getTile();
+        final int id = tile.getId();
+        long[] mask = id >= 0 && id < masks.length && maskTiles[id] == tile ? masks[id] : foreignMasks.get(tile);
+        if (mask == null) {
+            mask = compileMask(tile, null);
+            foreignMasks.put(tile, mask);
+        }
+
+        final int bit = (y % tileHeight) * tileWidth + (x % tileWidth);
+        return (mask[bit >>> 6] & (1L << bit)) != 0 ? Tile.SOLID : Tile.HOLLOW;
     }
 
     public abstract TiledMap getTileMap();
@@ -92,6 +113,7 @@ public abstract class TileBasedLevel extends Level {
 
         final Cell org = layer.getCell(tileX, tileY);
         layer.setCell(tileX, tileY, cell);
+        terrainChanged();
 
         final int key = tileX * 31 + tileY;
         if (orgTiles.get(key) == null)
@@ -116,6 +138,7 @@ public abstract class TileBasedLevel extends Level {
             layer.setCell(holder.x, holder.y, holder.cell);
         });
         orgTiles.clear();
+        terrainChanged();
     }
 
     public int getTileWidth() {
@@ -151,7 +174,7 @@ public abstract class TileBasedLevel extends Level {
     public void runOnceWhenMainCollides(final Event event, final int tileX, final int tileY, final int tilesX, final int tilesY) {
         runOnceWhen(event, () -> getAliveMainCharacters()
                 .stream()
-                .map(main -> BaseLogic.rectanglesCollide(main.bounds.toRectangle(), getRectangle(tileX, tileY, tilesX, tilesY)))
+                .map(main -> main.collidesWith(getRectangle(tileX, tileY, tilesX, tilesY)))
                 .findFirst()
                 .orElse(false));
     }
@@ -162,21 +185,67 @@ public abstract class TileBasedLevel extends Level {
         restoreTiles();
     }
 
-    private void encode() {
-        for (int x = 0; x < tilesX; x++) {
-            for (int y = 0; y < tilesY; y++) {
-                final Cell cell = layer.getCell(x, y);
-                if (cell != null) {
-                    final TextureRegion region = cell.getTile().getTextureRegion();
-                    final TextureData tdata = region.getTexture().getTextureData();
-                    tdata.prepare();
-                    final Pixmap pix = tdata.consumePixmap();
-                    tileSet = new Image2D(pix, true);
-                    pix.dispose();
-                    return;
+    private void compileMasks() {
+        final Map<Texture, Pixmap> pixmaps = new HashMap<>();
+
+        for (final TiledMapTileSet tileSet : map.getTileSets()) {
+            for (final TiledMapTile tile : tileSet) {
+                final int id = tile.getId();
+                if (id < 0)
+                    continue;
+
+                if (id >= masks.length) {
+                    final int length = Math.max(id + 1, masks.length * 2);
+                    masks = Arrays.copyOf(masks, length);
+                    maskTiles = Arrays.copyOf(maskTiles, length);
                 }
+                masks[id] = compileMask(tile, pixmaps);
+                maskTiles[id] = tile;
             }
         }
+
+        pixmaps.forEach((texture, pix) -> {
+            if (texture.getTextureData().disposePixmap())
+                pix.dispose();
+        });
+    }
+
+    /**
+     * Compiles the mask of the given tile. Pixmaps read from the tile textures are
+     * cached in the given map, or disposed right away if it is {@code null}.
+     */
+    private long[] compileMask(final TiledMapTile tile, final Map<Texture, Pixmap> pixmaps) {
+        final TextureRegion region = tile.getTextureRegion();
+        final Texture texture = region.getTexture();
+
+        Pixmap pix = pixmaps == null ? null : pixmaps.get(texture);
+        if (pix == null) {
+            final TextureData tdata = texture.getTextureData();
+            if (!tdata.isPrepared())
+                tdata.prepare();
+            pix = tdata.consumePixmap();
+
+            if (pixmaps != null)
+                pixmaps.put(texture, pix);
+        }
+
+        final int regX = region.getRegionX();
+        final int regY = region.getRegionY() - tileHeight;
+        final long[] mask = new long[wordsPerTile];
+
+        for (int relY = 0; relY < tileHeight; relY++) {
+            for (int relX = 0; relX < tileWidth; relX++) {
+                if ((pix.getPixel(regX + relX, regY + relY) & 0x000000FF) > 0) {
+                    final int bit = relY * tileWidth + relX;
+                    mask[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+
+        if (pixmaps == null && texture.getTextureData().disposePixmap())
+            pix.dispose();
+
+        return mask;
     }
 
     private static class PositionedCell {
@@ -259,6 +259,11 @@ public class CollapsingCave extends TileBasedLevel {
             {
                 setVisible(true);
             }
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 ps.setPosition(drill.centerX(), drill.centerY());
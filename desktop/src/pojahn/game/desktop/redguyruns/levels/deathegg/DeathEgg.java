@@ -556,7 +556,7 @@ public class DeathEgg extends TileBasedLevel {
                 if (pd.collidesWith(play)) {
                     collided.value = true;
                     play.touch(-1);
-                } else if (pd.collidesWith(field1) || pd.getOccupyingCells().contains(Tile.SOLID)) {
+                } else if (pd.collidesWith(field1) || Tile.SOLID.in(pd.getOccupyingTiles())) {
                     collided.value = true;
                 }
 
@@ -632,6 +632,11 @@ public class MutantLab extends PixelBasedLevel {
                 float posY = 4;
                 boolean goingBack;
 
+                @Override
+                protected boolean hasBasicRender() {
+                    return false;
+                }
+
                 @Override
                 public void render(final SpriteBatch batch) {
                     if (++counter % 5 == 0) {
@@ -659,6 +664,11 @@ public class MutantLab extends PixelBasedLevel {
                 float posY = 1;
                 boolean goingBack;
 
+                @Override
+                protected boolean hasBasicRender() {
+                    return false;
+                }
+
                 @Override
                 public void render(final SpriteBatch batch) {
                     if (++counter % 5 == 0) {
@@ -198,6 +198,11 @@ public class DontEatShroom extends TileBasedLevel {
             int counter = 0;
             final float space = 50f;
 
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 getEngine().hudCamera();
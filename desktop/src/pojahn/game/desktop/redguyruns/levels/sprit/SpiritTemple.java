@@ -99,6 +99,11 @@ public class SpiritTemple extends TileBasedLevel {
         add(new EntityBuilder().image(resources.getImage("background.png")).zIndex(-2).build(RepeatingParallaxImage.class));
 
         final Entity darkShade = new Entity() {
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 final Dimension size = getEngine().getScreenSize();
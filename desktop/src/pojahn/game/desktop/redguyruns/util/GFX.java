@@ -20,6 +20,11 @@ public class GFX {
                 takeSound = resource.getSound("collect2.wav");
             }
 
+            @Override
+            protected boolean hasBasicRender() {
+                return false;
+            }
+
             @Override
             public void render(final SpriteBatch batch) {
                 getEngine().hudCamera();